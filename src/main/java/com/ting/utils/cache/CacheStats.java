@@ -0,0 +1,49 @@
+package com.ting.utils.cache;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 缓存统计
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Getter
+@ToString
+public class CacheStats {
+
+    /**
+     * 命中次数
+     */
+    private final long hits;
+
+    /**
+     * 未命中次数
+     */
+    private final long misses;
+
+    /**
+     * 因超过容量淘汰的数量
+     */
+    private final long evictions;
+
+    /**
+     * 当前数量，包含已过期但还未清理的
+     */
+    private final long size;
+
+    /**
+     * 命中率
+     */
+    private final double hitRate;
+
+    CacheStats(long hits, long misses, long evictions, long size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.hitRate = hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+}
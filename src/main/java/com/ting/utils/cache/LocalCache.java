@@ -0,0 +1,179 @@
+package com.ting.utils.cache;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有容量和过期时间的本地缓存
+ * <p>
+ * 按key的hash分成多个段，每段是一个按访问顺序排列的LinkedHashMap，超过容量时淘汰最久未访问的；
+ * 只锁单个段。未命中时通过{@link SingleFlight}加载，相同key的并发加载只执行一次。允许缓存null
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class LocalCache<K, V> {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+
+    private final long ttlNanos;
+
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize 最大数量，平均分配到各段，实际上限按段向上取整
+     * @param ttl         写入后的过期时间
+     */
+    @SuppressWarnings("unchecked")
+    public LocalCache(int maximumSize, Duration ttl) {
+        Assert.isTrue(maximumSize > 0, "缓存容量必须大于0");
+        Assert.isTrue(!ttl.isNegative() && !ttl.isZero(), "过期时间必须大于0");
+        this.ttlNanos = ttl.toNanos();
+        int segmentCount = Math.min(SEGMENTS, Integer.highestOneBit(maximumSize));
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = (Segment<K, V>[]) new Segment<?, ?>[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentSize, evictions);
+        }
+    }
+
+    /**
+     * 获取缓存，不存在或已过期时加载
+     *
+     * @param key    key
+     * @param loader 加载
+     * @return 值
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Item<V> entry = entry(key);
+        if (entry != null) {
+            return entry.value;
+        }
+        return singleFlight.execute(key, () -> {
+            V value = loader.apply(key);
+            put(key, value);
+            return value;
+        });
+    }
+
+    /**
+     * 获取缓存
+     *
+     * @param key key
+     * @return 不存在或已过期时返回null
+     */
+    public V getIfPresent(K key) {
+        Item<V> entry = entry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, new Item<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K, V> segment = segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    private Item<V> entry(K key) {
+        Segment<K, V> segment = segment(key);
+        Item<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && entry.expireAt - System.nanoTime() <= 0) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    private Segment<K, V> segment(K key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[h & (segments.length - 1)];
+    }
+
+    private static final class Item<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        private Item(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, Item<V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+
+        private final LongAdder evictions;
+
+        private Segment(int maximumSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Item<V>> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ting.utils.cache;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同key的并发请求
+ * <p>
+ * 同一个key同时只有一个线程执行加载，其他线程等待并共享它的结果（包括异常）；加载完成后立即移除，
+ * 之后的请求重新加载，不做缓存
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * 调用次数
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * 共享了其他线程结果的次数
+     */
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * 执行加载，相同key正在加载时等待其结果
+     *
+     * @param key    key
+     * @param loader 加载
+     * @return 加载结果
+     */
+    public V execute(K key, Supplier<? extends V> loader) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * 异步执行加载，相同key正在加载时返回同一个结果
+     *
+     * @param key    key
+     * @param loader 加载
+     * @return 加载结果
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<? extends CompletableFuture<? extends V>> loader) {
+        calls.increment();
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        CompletableFuture<? extends V> future;
+        try {
+            future = loader.get();
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            return flight;
+        }
+        future.whenComplete((value, e) -> {
+            flights.remove(key, flight);
+            if (e == null) {
+                flight.complete(value);
+            } else {
+                flight.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return flight;
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getShared() {
+        return shared.sum();
+    }
+}
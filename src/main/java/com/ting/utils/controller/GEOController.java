@@ -1,11 +1,28 @@
 package com.ting.utils.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ting.utils.geo.GeoImportResult;
+import com.ting.utils.geo.GeoImporter;
+import com.ting.utils.geo.GeoLookupCache;
+import com.ting.utils.geo.GeoProperties;
+import com.ting.utils.geo.GeoResultCodec;
+import com.ting.utils.geo.GeoSearcher;
+import com.ting.utils.geo.LocalGeoIndex;
+import com.ting.utils.geo.PartitionedGeoStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.geo.*;
 import org.springframework.data.redis.connection.RedisGeoCommands;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.util.CollectionUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -21,10 +38,48 @@ public class GEOController {
 
     private final StringRedisTemplate stringRedisTemplate;
 
-    private static final String KEY = "geo:ting";
+    /**
+     * 本地索引，未开启时为null
+     */
+    private final LocalGeoIndex localGeoIndex;
+
+    public static final String KEY = "geo:ting";
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    /**
+     * 分区存储，未开启时为null
+     */
+    private final PartitionedGeoStore partitionedGeoStore;
 
-    public GEOController(StringRedisTemplate stringRedisTemplate) {
+    private final GeoImporter geoImporter;
+
+    private final GeoSearcher geoSearcher;
+
+    private final GeoProperties geoProperties;
+
+    private final ObjectMapper objectMapper;
+
+    private final GeoLookupCache geoLookupCache;
+
+    public GEOController(StringRedisTemplate stringRedisTemplate,
+                         ObjectProvider<LocalGeoIndex> localGeoIndex,
+                         ObjectProvider<PartitionedGeoStore> partitionedGeoStore,
+                         GeoImporter geoImporter,
+                         GeoSearcher geoSearcher,
+                         GeoProperties geoProperties,
+                         ObjectMapper objectMapper,
+                         GeoLookupCache geoLookupCache) {
         this.stringRedisTemplate = stringRedisTemplate;
+        this.localGeoIndex = localGeoIndex.getIfAvailable();
+        this.partitionedGeoStore = partitionedGeoStore.getIfAvailable();
+        this.geoImporter = geoImporter;
+        this.geoSearcher = geoSearcher;
+        this.geoProperties = geoProperties;
+        this.objectMapper = objectMapper;
+        this.geoLookupCache = geoLookupCache;
     }
 
     /**
@@ -38,61 +93,245 @@ public class GEOController {
      */
     @PostMapping(value = "add")
     public void add(@RequestBody Map<String, Point> map) {
+        if (partitionedGeoStore != null) {
+            partitionedGeoStore.add(map);
+            return;
+        }
         stringRedisTemplate.opsForGeo().add(KEY, map);
+        if (localGeoIndex != null) {
+            localGeoIndex.putAll(map);
+        }
+    }
+
+    /**
+     * 流式批量导入，经纬度范围同{@link #add(Map)}
+     * <p>
+     * Content-Type为application/x-ndjson时每行一个JSON：{"name":"a","x":116.40,"y":39.90}；
+     * 为text/csv时每行 name,x,y
+     *
+     * @param batchSize 每条GEOADD的数量
+     * @param request   请求
+     * @return 导入结果
+     * @throws IOException 读取请求体失败
+     */
+    @PostMapping(value = "import", consumes = {"application/x-ndjson", "text/csv"})
+    public GeoImportResult importPoints(@RequestParam(value = "batchSize", required = false) Integer batchSize,
+                                        HttpServletRequest request) throws IOException {
+        GeoImporter.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(TEXT_CSV)
+                ? GeoImporter.Format.CSV
+                : GeoImporter.Format.NDJSON;
+        return geoImporter.importPoints(request.getInputStream(), format, batchSize);
     }
 
     @PostMapping(value = "delete")
     public void delete(@RequestBody String[] names) {
+        if (partitionedGeoStore != null) {
+            partitionedGeoStore.remove(names);
+            return;
+        }
         stringRedisTemplate.opsForGeo().remove(KEY, names);
+        if (localGeoIndex != null) {
+            localGeoIndex.removeAll(Arrays.asList(names));
+        }
     }
 
     /**
      * @param x        经度
      * @param y        维度
      * @param distance 距离
+     * @param limit    输出元素的个数，不传时不限制
      * @return
      */
 
     @GetMapping(value = "get/{x}/{y}/{distance}")
     public Object get(@PathVariable(value = "x") Double x,
                       @PathVariable(value = "y") Double y,
-                      @PathVariable(value = "distance") double distance) {
+                      @PathVariable(value = "distance") double distance,
+                      @RequestParam(value = "limit", required = false) Integer limit) {
 
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content =
+                geoLookupCache.radius(new Point(x, y), distance, limit == null ? 0 : limit, this::radius);
+        return content.isEmpty() ? null : content;
+    }
+
+    /**
+     * 与{@link #get(Double, Double, double, Integer)}相同的查询，按Accept返回列式二进制或deflate压缩的列式二进制，
+     * 格式见{@link GeoResultCodec}
+     *
+     * @param accept 请求头Accept
+     * @return 编码后的结果
+     */
+    @GetMapping(value = "get/{x}/{y}/{distance}",
+            produces = {GeoResultCodec.COLUMNAR_VALUE, GeoResultCodec.COLUMNAR_DEFLATE_VALUE})
+    public ResponseEntity<StreamingResponseBody> getEncoded(@PathVariable(value = "x") Double x,
+                                                            @PathVariable(value = "y") Double y,
+                                                            @PathVariable(value = "distance") double distance,
+                                                            @RequestParam(value = "limit", required = false) Integer limit,
+                                                            @RequestHeader(value = HttpHeaders.ACCEPT) String accept) {
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content =
+                geoLookupCache.radius(new Point(x, y), distance, limit == null ? 0 : limit, this::radius);
+        return encoded(content, accept, ResponseEntity.ok());
+    }
+
+    /**
+     * 合并请求和缓存的统计
+     *
+     * @return 命中次数等
+     */
+    @GetMapping(value = "cache/stats")
+    public Map<String, Object> cacheStats() {
+        return geoLookupCache.stats();
+    }
+
+    private List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double distance, int limit) {
+        if (partitionedGeoStore != null) {
+            return partitionedGeoStore.radius(center, distance, limit);
+        }
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return localGeoIndex.radius(center, distance * 1000, limit);
+        }
 
         // 设置输出的参数
         RedisGeoCommands.GeoRadiusCommandArgs geoRadiusCommandArgs = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
                 .sortAscending()// 排序
-                //.limit(3)// 输出元素的个数
                 .includeCoordinates()// 输出经纬度
                 .includeDistance();// 距离
+        if (limit > 0) {
+            geoRadiusCommandArgs.limit(limit);// 输出元素的个数
+        }
         GeoResults<RedisGeoCommands.GeoLocation<String>> radius = stringRedisTemplate.opsForGeo()
                 .radius(
                         KEY,
-                        new Circle(new Point(x, y), new Distance(distance, Metrics.KILOMETERS)),
+                        new Circle(center, new Distance(distance, Metrics.KILOMETERS)),
                         geoRadiusCommandArgs
                 );
-        assert radius != null;
-        if (!CollectionUtils.isEmpty(radius.getContent())) {
-            radius.getContent().forEach(item -> {
-                System.out.println("item.getContent().getPoint() = " + item.getContent().getPoint());
-                System.out.println("item.getContent().getName() = " + item.getContent().getName());
+        return radius == null ? Collections.emptyList() : radius.getContent();
+    }
 
-            });
+    /**
+     * 分页的半径查询
+     * <p>
+     * 返回 {"items":[{"name":"a","x":116.40,"y":39.90,"distance":1.2}],"nextCursor":"MTAwLDEuMixh"}，
+     * distance单位为千米，nextCursor为null时没有下一页；
+     * 一页的数据在写出前已经全部查出，参数错误在写出前抛出，写出时用JsonGenerator直接输出，不再构造中间对象
+     *
+     * @param x        经度
+     * @param y        维度
+     * @param distance 距离（千米）
+     * @param limit    每页数量
+     * @param cursor   上一页返回的nextCursor，第一页不传
+     * @param any      为true时返回半径内任意limit个点，速度最快但不保证是最近的，不支持分页
+     * @return 流式输出的json
+     */
+    @GetMapping(value = "search/{x}/{y}/{distance}")
+    public ResponseEntity<StreamingResponseBody> search(@PathVariable(value = "x") double x,
+                                                        @PathVariable(value = "y") double y,
+                                                        @PathVariable(value = "distance") double distance,
+                                                        @RequestParam(value = "limit", required = false) Integer limit,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "any", defaultValue = "false") boolean any) {
+        GeoProperties.Search properties = geoProperties.getSearch();
+        int size = limit == null ? properties.getDefaultLimit() : Math.min(limit, properties.getMaxLimit());
+        GeoSearcher.Page page = geoSearcher.search(new Point(x, y), distance, cursor, size, any);
 
-            return radius.getContent();
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartObject();
+                generator.writeArrayFieldStart("items");
+                for (GeoResult<RedisGeoCommands.GeoLocation<String>> item : page.getContent()) {
+                    Point point = item.getContent().getPoint();
+                    generator.writeStartObject();
+                    generator.writeStringField("name", item.getContent().getName());
+                    generator.writeNumberField("x", point.getX());
+                    generator.writeNumberField("y", point.getY());
+                    generator.writeNumberField("distance", item.getDistance().getValue());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                if (page.getNextCursor() == null) {
+                    generator.writeNullField("nextCursor");
+                } else {
+                    generator.writeStringField("nextCursor", page.getNextCursor());
+                }
+                generator.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 与{@link #search(double, double, double, Integer, String, boolean)}相同的查询，按Accept返回列式二进制，
+     * nextCursor放在响应头X-Next-Cursor中，没有下一页时不返回该响应头
+     *
+     * @param accept 请求头Accept
+     * @return 编码后的结果
+     */
+    @GetMapping(value = "search/{x}/{y}/{distance}",
+            produces = {GeoResultCodec.COLUMNAR_VALUE, GeoResultCodec.COLUMNAR_DEFLATE_VALUE})
+    public ResponseEntity<StreamingResponseBody> searchEncoded(@PathVariable(value = "x") double x,
+                                                               @PathVariable(value = "y") double y,
+                                                               @PathVariable(value = "distance") double distance,
+                                                               @RequestParam(value = "limit", required = false) Integer limit,
+                                                               @RequestParam(value = "cursor", required = false) String cursor,
+                                                               @RequestParam(value = "any", defaultValue = "false") boolean any,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT) String accept) {
+        GeoProperties.Search properties = geoProperties.getSearch();
+        int size = limit == null ? properties.getDefaultLimit() : Math.min(limit, properties.getMaxLimit());
+        GeoSearcher.Page page = geoSearcher.search(new Point(x, y), distance, cursor, size, any);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header(NEXT_CURSOR, page.getNextCursor());
+        }
+        return encoded(page.getContent(), accept, builder);
+    }
 
+    private static ResponseEntity<StreamingResponseBody> encoded(
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content, String accept,
+            ResponseEntity.BodyBuilder builder) {
+        // 按Accept的权重选择，权重相同时优先压缩的
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        double plainQuality = quality(mediaTypes, GeoResultCodec.COLUMNAR);
+        double deflateQuality = quality(mediaTypes, GeoResultCodec.COLUMNAR_DEFLATE);
+        boolean deflate = deflateQuality > 0 && deflateQuality >= plainQuality;
+        return builder.contentType(deflate ? GeoResultCodec.COLUMNAR_DEFLATE : GeoResultCodec.COLUMNAR)
+                .body(outputStream -> GeoResultCodec.encode(content, outputStream, deflate));
+    }
+
+    /**
+     * 最具体的匹配项的权重
+     *
+     * @param mediaTypes 按具体程度和权重排序后的Accept
+     * @param target     响应的类型
+     * @return 不接受时为0
+     */
+    private static double quality(List<MediaType> mediaTypes, MediaType target) {
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(target)) {
+                return mediaType.getQualityValue();
+            }
         }
-        return null;
+        return 0;
     }
 
     @GetMapping(value = "getByName/{name}")
     public List<Point> getByName(@PathVariable(value = "name") String name) {
-        return stringRedisTemplate.opsForGeo().position(KEY, name);
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return localGeoIndex.position(name);
+        }
+        return geoLookupCache.position(name, () -> partitionedGeoStore != null
+                ? partitionedGeoStore.position(name)
+                : stringRedisTemplate.opsForGeo().position(KEY, name));
     }
 
     @GetMapping(value = "getByNameList")
     public List<Point> getByNameList(@RequestBody String[] name) {
-        return stringRedisTemplate.opsForGeo().position(KEY, name);
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return localGeoIndex.position(name);
+        }
+        return geoLookupCache.position(name, () -> partitionedGeoStore != null
+                ? partitionedGeoStore.position(name)
+                : stringRedisTemplate.opsForGeo().position(KEY, name));
     }
 
 
@@ -0,0 +1,140 @@
+package com.ting.utils.controller;
+
+import com.ting.utils.geo.GeoLookupCache;
+import com.ting.utils.geo.LocalGeoIndex;
+import com.ting.utils.geo.PartitionedGeoStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.geo.*;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 非阻塞的geo接口，参数和返回值与{@link GEOController}相同
+ * <p>
+ * 通过响应式的redis客户端访问redis，返回CompletableFuture，等待redis期间不占用tomcat线程，
+ * 并发请求数不再受servlet线程数限制；超时时间由spring.mvc.async.request-timeout控制。
+ * 开启内存索引时直接返回内存中的结果；开启分区时新增、删除和按成员查询同样通过响应式的客户端访问各个分区，
+ * 半径查询在分区查询的线程池中并行执行
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@RestController
+@RequestMapping("/geo/async")
+public class GeoAsyncController {
+
+    private static final String KEY = GEOController.KEY;
+
+    private final ReactiveStringRedisTemplate reactiveStringRedisTemplate;
+
+    /**
+     * 本地索引，未开启时为null
+     */
+    private final LocalGeoIndex localGeoIndex;
+
+    /**
+     * 分区存储，未开启时为null
+     */
+    private final PartitionedGeoStore partitionedGeoStore;
+
+    private final GeoLookupCache geoLookupCache;
+
+    public GeoAsyncController(ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                              ObjectProvider<LocalGeoIndex> localGeoIndex,
+                              ObjectProvider<PartitionedGeoStore> partitionedGeoStore,
+                              GeoLookupCache geoLookupCache) {
+        this.reactiveStringRedisTemplate = reactiveStringRedisTemplate;
+        this.localGeoIndex = localGeoIndex.getIfAvailable();
+        this.partitionedGeoStore = partitionedGeoStore.getIfAvailable();
+        this.geoLookupCache = geoLookupCache;
+    }
+
+    @PostMapping(value = "add")
+    public CompletableFuture<Void> add(@RequestBody Map<String, Point> map) {
+        if (partitionedGeoStore != null) {
+            return partitionedGeoStore.addAsync(map);
+        }
+        return reactiveStringRedisTemplate.opsForGeo().add(KEY, map).toFuture().thenAccept(count -> {
+            if (localGeoIndex != null) {
+                localGeoIndex.putAll(map);
+            }
+        });
+    }
+
+    @PostMapping(value = "delete")
+    public CompletableFuture<Void> delete(@RequestBody String[] names) {
+        if (partitionedGeoStore != null) {
+            return partitionedGeoStore.removeAsync(names);
+        }
+        return reactiveStringRedisTemplate.opsForGeo().remove(KEY, names).toFuture().thenAccept(count -> {
+            if (localGeoIndex != null) {
+                localGeoIndex.removeAll(Arrays.asList(names));
+            }
+        });
+    }
+
+    /**
+     * @param x        经度
+     * @param y        维度
+     * @param distance 距离
+     * @param limit    输出元素的个数，不传时不限制
+     * @return
+     */
+    @GetMapping(value = "get/{x}/{y}/{distance}")
+    public CompletableFuture<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> get(
+            @PathVariable(value = "x") Double x,
+            @PathVariable(value = "y") Double y,
+            @PathVariable(value = "distance") double distance,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        return geoLookupCache.radiusAsync(new Point(x, y), distance, limit == null ? 0 : limit, this::radius)
+                .thenApply(content -> content.isEmpty() ? null : content);
+    }
+
+    @GetMapping(value = "getByName/{name}")
+    public CompletableFuture<List<Point>> getByName(@PathVariable(value = "name") String name) {
+        return position(new String[]{name});
+    }
+
+    @GetMapping(value = "getByNameList")
+    public CompletableFuture<List<Point>> getByNameList(@RequestBody String[] name) {
+        return position(name);
+    }
+
+    private CompletableFuture<List<Point>> position(String[] names) {
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return CompletableFuture.completedFuture(localGeoIndex.position(names));
+        }
+        return geoLookupCache.positionAsync(names, () -> partitionedGeoStore != null
+                ? partitionedGeoStore.positionAsync(names)
+                : reactiveStringRedisTemplate.opsForGeo().position(KEY, names).toFuture());
+    }
+
+    private CompletableFuture<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> radius(Point center,
+                                                                                            double distance,
+                                                                                            int limit) {
+        if (partitionedGeoStore != null) {
+            return partitionedGeoStore.radiusAsync(center, distance, limit);
+        }
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return CompletableFuture.completedFuture(localGeoIndex.radius(center, distance * 1000, limit));
+        }
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .sortAscending()
+                .includeCoordinates()
+                .includeDistance();
+        if (limit > 0) {
+            args.limit(limit);
+        }
+        return reactiveStringRedisTemplate.opsForGeo()
+                .radius(KEY, new Circle(center, new Distance(distance, Metrics.KILOMETERS)), args)
+                .collectList()
+                .toFuture();
+    }
+}
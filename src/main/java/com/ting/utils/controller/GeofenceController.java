@@ -0,0 +1,79 @@
+package com.ting.utils.controller;
+
+import com.ting.utils.geo.GeofenceEngine;
+import com.ting.utils.geo.GeofenceEvent;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 地理围栏
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@RestController
+@RequestMapping("/geo/fence")
+public class GeofenceController {
+
+    private final GeofenceEngine geofenceEngine;
+
+    public GeofenceController(GeofenceEngine geofenceEngine) {
+        this.geofenceEngine = geofenceEngine;
+    }
+
+    /**
+     * 登记圆形围栏：{"center":{"x":116.40,"y":39.90},"radius":{"value":1,"metric":"KILOMETERS"}}
+     *
+     * @param id     围栏id
+     * @param circle 圆形
+     */
+    @PostMapping(value = "circle/{id}")
+    public void addCircle(@PathVariable(value = "id") String id, @RequestBody Circle circle) {
+        geofenceEngine.register(id, circle);
+    }
+
+    /**
+     * 登记多边形围栏：{"points":[{"x":116.40,"y":39.90},...]}
+     *
+     * @param id      围栏id
+     * @param polygon 多边形
+     */
+    @PostMapping(value = "polygon/{id}")
+    public void addPolygon(@PathVariable(value = "id") String id, @RequestBody Polygon polygon) {
+        geofenceEngine.register(id, polygon);
+    }
+
+    @PostMapping(value = "delete/{id}")
+    public boolean delete(@PathVariable(value = "id") String id) {
+        return geofenceEngine.remove(id);
+    }
+
+    /**
+     * 批量更新设备位置
+     *
+     * @param map key:设备；value:经纬度
+     * @return 进入和离开围栏的事件
+     */
+    @PostMapping(value = "update")
+    public List<GeofenceEvent> update(@RequestBody Map<String, Point> map) {
+        List<GeofenceEvent> events = new ArrayList<>();
+        map.forEach((deviceId, point) -> events.addAll(geofenceEngine.update(deviceId, point)));
+        return events;
+    }
+
+    /**
+     * @param deviceId 设备
+     * @return 设备当前所在的围栏
+     */
+    @GetMapping(value = "device/{deviceId}")
+    public List<String> fencesOf(@PathVariable(value = "deviceId") String deviceId) {
+        return geofenceEngine.fencesOf(deviceId);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ting.utils.controller;
+
+import com.ting.utils.metrics.MetricsRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * prometheus指标
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@RestController
+public class MetricsController {
+
+    /**
+     * 指标注册表，未开启时为null
+     */
+    private final MetricsRegistry metricsRegistry;
+
+    public MetricsController(ObjectProvider<MetricsRegistry> metricsRegistry) {
+        this.metricsRegistry = metricsRegistry.getIfAvailable();
+    }
+
+    /**
+     * @return prometheus文本格式的指标，未开启时为空
+     */
+    @GetMapping(value = "/metrics", produces = MetricsRegistry.CONTENT_TYPE)
+    public String metrics() {
+        return metricsRegistry == null ? "" : metricsRegistry.scrape();
+    }
+}
@@ -0,0 +1,59 @@
+package com.ting.utils.controller;
+
+import com.ting.utils.redis.HotKeyDetector;
+import com.ting.utils.redis.NearCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * redis运行状态
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@RestController
+@RequestMapping("/redis")
+public class RedisController {
+
+    /**
+     * 近端缓存，未开启时为null
+     */
+    private final NearCache nearCache;
+
+    /**
+     * 热点key统计，未开启时为null
+     */
+    private final HotKeyDetector hotKeyDetector;
+
+    public RedisController(ObjectProvider<NearCache> nearCache, ObjectProvider<HotKeyDetector> hotKeyDetector) {
+        this.nearCache = nearCache.getIfAvailable();
+        this.hotKeyDetector = hotKeyDetector.getIfAvailable();
+    }
+
+    /**
+     * @return 近端缓存的命中率等统计，未开启时为空
+     */
+    @GetMapping(value = "near-cache/stats")
+    public Map<String, Object> nearCacheStats() {
+        return nearCache == null ? Collections.emptyMap() : nearCache.stats();
+    }
+
+    /**
+     * @param current true时返回正在统计的窗口，false时返回上一个完整窗口
+     * @return 访问最多的key及估计次数，未开启时为null
+     */
+    @GetMapping(value = "hot-keys")
+    public HotKeyDetector.Report hotKeys(@RequestParam(defaultValue = "false") boolean current) {
+        if (hotKeyDetector == null) {
+            return null;
+        }
+        return current ? hotKeyDetector.getCurrent() : hotKeyDetector.getLast();
+    }
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 /**
  * 简单的实体类
  *
@@ -14,7 +16,10 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-public class ParamDto<K, V> {
+public class ParamDto<K, V> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
     private K key;
     private V value;
     private K groupKey;
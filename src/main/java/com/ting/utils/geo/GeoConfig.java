@@ -0,0 +1,82 @@
+package com.ting.utils.geo;
+
+import com.ting.utils.controller.GEOController;
+import com.ting.utils.redis.ShardedRedisUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.util.function.Function;
+
+/**
+ * geo配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(GeoProperties.class)
+public class GeoConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ting.geo.index", name = "enabled", havingValue = "true")
+    public LocalGeoIndex localGeoIndex(StringRedisTemplate stringRedisTemplate, GeoProperties properties) {
+        return new LocalGeoIndex(stringRedisTemplate, GEOController.KEY, properties.getIndex());
+    }
+
+    /**
+     * 分区存储，开启了分片redis时分区分布到各个分片上
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "ting.geo.partition", name = "enabled", havingValue = "true")
+    public PartitionedGeoStore partitionedGeoStore(StringRedisTemplate stringRedisTemplate,
+                                                   ReactiveStringRedisTemplate reactiveStringRedisTemplate,
+                                                   ObjectProvider<ShardedRedisUtils> shardedRedisUtils,
+                                                   GeoProperties properties) {
+        Assert.state(!properties.getIndex().isEnabled(), "geo分区与内存索引不能同时开启");
+        ShardedRedisUtils sharded = shardedRedisUtils.getIfAvailable();
+        Function<String, StringRedisTemplate> templateResolver = sharded == null
+                ? key -> stringRedisTemplate
+                : sharded::stringTemplate;
+        Function<String, ReactiveStringRedisTemplate> reactiveTemplateResolver = sharded == null
+                ? key -> reactiveStringRedisTemplate
+                : sharded::reactiveStringTemplate;
+        return new PartitionedGeoStore(GEOController.KEY, properties.getPartition(), templateResolver,
+                reactiveTemplateResolver);
+    }
+
+    @Bean
+    public GeoImporter geoImporter(StringRedisTemplate stringRedisTemplate,
+                                   ObjectProvider<LocalGeoIndex> localGeoIndex,
+                                   ObjectProvider<PartitionedGeoStore> partitionedGeoStore,
+                                   GeoProperties properties) {
+        return new GeoImporter(stringRedisTemplate, GEOController.KEY, localGeoIndex.getIfAvailable(),
+                partitionedGeoStore.getIfAvailable(), properties.getImporter());
+    }
+
+    @Bean
+    public GeoSearcher geoSearcher(StringRedisTemplate stringRedisTemplate,
+                                   ObjectProvider<LocalGeoIndex> localGeoIndex,
+                                   ObjectProvider<PartitionedGeoStore> partitionedGeoStore,
+                                   GeoProperties properties) {
+        return new GeoSearcher(stringRedisTemplate, GEOController.KEY, localGeoIndex.getIfAvailable(),
+                partitionedGeoStore.getIfAvailable(), properties.getSearch().getMaxDepth());
+    }
+
+    @Bean
+    public GeofenceEngine geofenceEngine(GeoProperties properties) {
+        GeoProperties.Fence fence = properties.getFence();
+        return new GeofenceEngine(fence.getCellSize(), fence.getMaxCellsPerFence());
+    }
+
+    @Bean
+    public GeoLookupCache geoLookupCache(GeoProperties properties) {
+        return new GeoLookupCache(properties.getCache());
+    }
+}
@@ -0,0 +1,169 @@
+package com.ting.utils.geo;
+
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * geohash编码
+ * <p>
+ * 精度为n时共5n位，经度占 ceil(5n/2) 位，纬度占 floor(5n/2) 位，从经度开始交替排列
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoHash {
+
+    private static final String BASE32_INDEX = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private static final char[] BASE32 = BASE32_INDEX.toCharArray();
+
+    private GeoHash() {
+    }
+
+    /**
+     * 计算经纬度所在的geohash
+     *
+     * @param x         经度
+     * @param y         纬度
+     * @param precision 字符数
+     * @return geohash
+     */
+    public static String encode(double x, double y, int precision) {
+        int lonBits = lonBits(precision);
+        int latBits = latBits(precision);
+        return encodeCell(index(x + 180, 360, lonBits), index(y + 90, 180, latBits), precision);
+    }
+
+    /**
+     * 计算覆盖圆形外接矩形的所有geohash
+     *
+     * @param x         经度
+     * @param y         纬度
+     * @param meters    半径（米）
+     * @param precision 字符数
+     * @param maxCells  最多返回的数量
+     * @return geohash，数量超过maxCells时返回null，由调用方改用其他方式查找
+     */
+    public static List<String> coveringCells(double x, double y, double meters, int precision, int maxCells) {
+        Range range = new Range(x, y, meters, precision);
+        long total = range.spanLon * (range.maxLat - range.minLat + 1);
+        if (total > maxCells) {
+            return null;
+        }
+        List<String> cells = new ArrayList<>((int) total);
+        for (long lat = range.minLat; lat <= range.maxLat; lat++) {
+            for (long i = 0; i < range.spanLon; i++) {
+                cells.add(encodeCell((range.minLon + i) % range.lonCells, lat, precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * geohash是否在圆形外接矩形的覆盖范围内，与{@link #coveringCells}的结果一致
+     *
+     * @param cell   geohash
+     * @param x      经度
+     * @param y      纬度
+     * @param meters 半径（米）
+     * @return 在{@link #coveringCells}返回的geohash中时为true
+     */
+    public static boolean covers(String cell, double x, double y, double meters) {
+        int precision = cell.length();
+        Range range = new Range(x, y, meters, precision);
+        int lonBit = lonBits(precision) - 1;
+        int latBit = latBits(precision) - 1;
+        long lon = 0;
+        long lat = 0;
+        for (int c = 0; c < precision; c++) {
+            int value = BASE32_INDEX.indexOf(cell.charAt(c));
+            Assert.isTrue(value >= 0, "geohash格式错误：" + cell);
+            for (int b = 4; b >= 0; b--) {
+                int bitIndex = c * 5 + (4 - b);
+                long bit = (value >>> b) & 1;
+                if ((bitIndex & 1) == 0) {
+                    lon |= bit << lonBit--;
+                } else {
+                    lat |= bit << latBit--;
+                }
+            }
+        }
+        return lat >= range.minLat && lat <= range.maxLat
+                && Math.floorMod(lon - range.minLon, range.lonCells) < range.spanLon;
+    }
+
+    private static int lonBits(int precision) {
+        Assert.isTrue(precision > 0 && precision <= 12, "精度必须在1到12之间");
+        return (precision * 5 + 1) / 2;
+    }
+
+    private static int latBits(int precision) {
+        return precision * 5 / 2;
+    }
+
+    /**
+     * 跨越180度经线时回绕到[0, 360)
+     */
+    private static double wrap(double offset) {
+        return ((offset % 360) + 360) % 360;
+    }
+
+    private static long index(double offset, double range, int bits) {
+        long cells = 1L << bits;
+        long index = (long) Math.floor(offset / range * cells);
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    private static String encodeCell(long lon, long lat, int precision) {
+        int lonBit = lonBits(precision) - 1;
+        int latBit = latBits(precision) - 1;
+        char[] chars = new char[precision];
+        for (int c = 0; c < precision; c++) {
+            int value = 0;
+            for (int b = 0; b < 5; b++) {
+                int bitIndex = c * 5 + b;
+                long bit = (bitIndex & 1) == 0 ? (lon >>> lonBit--) & 1 : (lat >>> latBit--) & 1;
+                value = (value << 1) | (int) bit;
+            }
+            chars[c] = BASE32[value];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 圆形外接矩形在指定精度下覆盖的经纬度下标范围，经度跨越180度经线时回绕
+     */
+    private static class Range {
+
+        private final long lonCells;
+
+        private final long minLon;
+
+        private final long spanLon;
+
+        private final long minLat;
+
+        private final long maxLat;
+
+        Range(double x, double y, double meters, int precision) {
+            int lonBits = lonBits(precision);
+            int latBits = latBits(precision);
+            double dy = GeoUtils.latitudeDelta(meters);
+            double dx = GeoUtils.longitudeDelta(meters, y);
+            this.lonCells = 1L << lonBits;
+            this.minLat = index(Math.max(y - dy, -90) + 90, 180, latBits);
+            this.maxLat = index(Math.min(y + dy, 90) + 90, 180, latBits);
+            if (dx >= 180) {
+                this.minLon = 0;
+                this.spanLon = lonCells;
+            } else {
+                this.minLon = index(wrap(x - dx + 180), 360, lonBits);
+                long maxLon = index(wrap(x + dx + 180), 360, lonBits);
+                this.spanLon = Math.floorMod(maxLon - minLon, lonCells) + 1;
+            }
+        }
+    }
+}
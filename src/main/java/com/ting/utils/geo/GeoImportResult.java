@@ -0,0 +1,64 @@
+package com.ting.utils.geo;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+public class GeoImportResult {
+
+    /**
+     * 最多保留的错误明细数量
+     */
+    static final int MAX_ERRORS = 20;
+
+    /**
+     * 读取的行数（不含空行）
+     */
+    private long lines;
+
+    /**
+     * 写入的数量
+     */
+    private long accepted;
+
+    /**
+     * 格式错误或经纬度超出范围的数量
+     */
+    private long rejected;
+
+    /**
+     * GEOADD的次数
+     */
+    private long batches;
+
+    /**
+     * 耗时（毫秒）
+     */
+    private long elapsedMillis;
+
+    /**
+     * 每秒写入的数量
+     */
+    private double pointsPerSecond;
+
+    /**
+     * 前{@value #MAX_ERRORS}条错误明细
+     */
+    private List<String> errors = new ArrayList<>();
+
+    void reject(long line, String reason) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("第" + line + "行：" + reason);
+        }
+    }
+}
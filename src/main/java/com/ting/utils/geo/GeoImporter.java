@@ -0,0 +1,220 @@
+package com.ting.utils.geo;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 经纬度流式批量导入
+ * <p>
+ * 逐行解析NDJSON或CSV，不会把整个请求读入内存；每 batchSize 个点组成一条GEOADD，
+ * 每 pipelineDepth 条GEOADD通过pipeline一次性发送
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoImporter {
+
+    /**
+     * 导入格式
+     */
+    public enum Format {
+        /**
+         * 每行一个JSON：{"name":"a","x":116.40,"y":39.90}
+         */
+        NDJSON,
+        /**
+         * 每行 name,x,y，可以有表头
+         */
+        CSV
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String key;
+
+    private final LocalGeoIndex localGeoIndex;
+
+    /**
+     * 开启分区时按分区写入，不使用pipeline
+     */
+    private final PartitionedGeoStore partitionedGeoStore;
+
+    private final GeoProperties.Import properties;
+
+    public GeoImporter(StringRedisTemplate stringRedisTemplate, String key, LocalGeoIndex localGeoIndex,
+                       PartitionedGeoStore partitionedGeoStore, GeoProperties.Import properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key;
+        this.localGeoIndex = localGeoIndex;
+        this.partitionedGeoStore = partitionedGeoStore;
+        this.properties = properties;
+    }
+
+    /**
+     * 导入
+     *
+     * @param inputStream 请求体
+     * @param format      格式
+     * @param batchSize   每条GEOADD的数量，为null时使用配置
+     * @return 导入结果
+     * @throws IOException 读取请求体失败
+     */
+    public GeoImportResult importPoints(InputStream inputStream, Format format, Integer batchSize) throws IOException {
+        int size = batchSize == null ? properties.getBatchSize() : batchSize;
+        Assert.isTrue(size > 0 && size <= properties.getMaxBatchSize(), "batchSize必须在1到" + properties.getMaxBatchSize() + "之间");
+        int pipelineSize = size * properties.getPipelineDepth();
+
+        GeoImportResult result = new GeoImportResult();
+        long start = System.currentTimeMillis();
+        List<String> names = new ArrayList<>(pipelineSize);
+        List<Point> points = new ArrayList<>(pipelineSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                result.setLines(result.getLines() + 1);
+                if (format == Format.NDJSON) {
+                    parseJson(line, lineNumber, names, points, result);
+                } else {
+                    parseCsv(line, lineNumber, names, points, result);
+                }
+                if (names.size() == pipelineSize) {
+                    flush(names, points, size, result);
+                }
+            }
+        }
+        flush(names, points, size, result);
+
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        result.setPointsPerSecond(result.getAccepted() * 1000.0 / Math.max(1, result.getElapsedMillis()));
+        return result;
+    }
+
+    private void parseJson(String line, long lineNumber, List<String> names, List<Point> points, GeoImportResult result) {
+        JSONObject object;
+        try {
+            object = JSON.parseObject(line);
+        } catch (RuntimeException e) {
+            result.reject(lineNumber, "JSON格式错误");
+            return;
+        }
+        String name = object.getString("name");
+        Double x = object.getDouble("x");
+        Double y = object.getDouble("y");
+        if (name == null || name.isEmpty() || x == null || y == null) {
+            result.reject(lineNumber, "缺少name、x或y");
+            return;
+        }
+        add(name, x, y, lineNumber, names, points, result);
+    }
+
+    private void parseCsv(String line, long lineNumber, List<String> names, List<Point> points, GeoImportResult result) {
+        int first = line.indexOf(',');
+        int second = first < 0 ? -1 : line.indexOf(',', first + 1);
+        if (second < 0) {
+            result.reject(lineNumber, "CSV格式错误，应为name,x,y");
+            return;
+        }
+        String name = line.substring(0, first).trim();
+        double x;
+        double y;
+        try {
+            x = Double.parseDouble(line.substring(first + 1, second).trim());
+            y = Double.parseDouble(line.substring(second + 1).trim());
+        } catch (NumberFormatException e) {
+            if (lineNumber == 1) {
+                // 表头
+                result.setLines(result.getLines() - 1);
+                return;
+            }
+            result.reject(lineNumber, "经纬度不是数字");
+            return;
+        }
+        if (name.isEmpty()) {
+            result.reject(lineNumber, "name不能为空");
+            return;
+        }
+        add(name, x, y, lineNumber, names, points, result);
+    }
+
+    private void add(String name, double x, double y, long lineNumber,
+                     List<String> names, List<Point> points, GeoImportResult result) {
+        if (!GeoUtils.isValid(x, y)) {
+            result.reject(lineNumber, "经纬度超出范围：" + x + "," + y);
+            return;
+        }
+        names.add(name);
+        points.add(new Point(x, y));
+    }
+
+    private void flush(List<String> names, List<Point> points, int batchSize, GeoImportResult result) {
+        if (names.isEmpty()) {
+            return;
+        }
+        if (partitionedGeoStore != null) {
+            for (int from = 0; from < names.size(); from += batchSize) {
+                int to = Math.min(names.size(), from + batchSize);
+                Map<String, Point> map = new LinkedHashMap<>((to - from) * 2);
+                for (int i = from; i < to; i++) {
+                    map.put(names.get(i), points.get(i));
+                }
+                partitionedGeoStore.add(map);
+                result.setBatches(result.getBatches() + 1);
+            }
+            result.setAccepted(result.getAccepted() + names.size());
+            names.clear();
+            points.clear();
+            return;
+        }
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        List<List<RedisGeoCommands.GeoLocation<byte[]>>> batches = new ArrayList<>();
+        List<RedisGeoCommands.GeoLocation<byte[]>> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < names.size(); i++) {
+            batch.add(new RedisGeoCommands.GeoLocation<>(names.get(i).getBytes(StandardCharsets.UTF_8), points.get(i)));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            batches.forEach(item -> connection.geoAdd(rawKey, item));
+            return null;
+        });
+
+        if (localGeoIndex != null) {
+            Map<String, Point> map = new LinkedHashMap<>(names.size() * 2);
+            for (int i = 0; i < names.size(); i++) {
+                map.put(names.get(i), points.get(i));
+            }
+            localGeoIndex.putAll(map);
+        }
+        result.setAccepted(result.getAccepted() + names.size());
+        result.setBatches(result.getBatches() + batches.size());
+        names.clear();
+        points.clear();
+    }
+}
@@ -0,0 +1,365 @@
+package com.ting.utils.geo;
+
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存中的经纬度网格索引
+ * <p>
+ * 按固定的经纬度步长把坐标划分成网格，每个网格只保存成员下标；成员的坐标保存在double数组中，
+ * 半径查询只需要遍历覆盖圆形外接矩形的网格。读操作共享读锁，写操作使用写锁
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoIndex {
+
+    /**
+     * 网格的经纬度步长（度）
+     */
+    private final double cellSize;
+
+    /**
+     * 经度方向的网格数量
+     */
+    private final int columns;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private String[] names = new String[16];
+
+    private double[] xs = new double[16];
+
+    private double[] ys = new double[16];
+
+    /**
+     * 删除后空出的下标
+     */
+    private int[] free = new int[16];
+
+    private int freeSize;
+
+    private int size;
+
+    private final Map<Long, Cell> cells = new HashMap<>();
+
+    /**
+     * 同步期间被写入过的成员，同步完成时以这些成员当前的数据为准
+     */
+    private Set<String> touched;
+
+    public GeoIndex(double cellSize) {
+        Assert.isTrue(cellSize > 0 && cellSize <= 180, "网格步长必须在(0, 180]之间");
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(360 / cellSize);
+    }
+
+    /**
+     * 新增或更新成员
+     *
+     * @param name  成员
+     * @param point 经纬度
+     */
+    public void put(String name, Point point) {
+        lock.writeLock().lock();
+        try {
+            doPut(name, point.getX(), point.getY());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量新增或更新成员
+     *
+     * @param map key:成员；value:经纬度
+     */
+    public void putAll(Map<String, Point> map) {
+        lock.writeLock().lock();
+        try {
+            map.forEach((name, point) -> doPut(name, point.getX(), point.getY()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 批量删除成员
+     *
+     * @param names 成员
+     */
+    public void removeAll(Collection<String> names) {
+        lock.writeLock().lock();
+        try {
+            names.forEach(this::doRemove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 获取成员的经纬度
+     *
+     * @param name 成员
+     * @return 不存在时返回null
+     */
+    public Point position(String name) {
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(name);
+            return id == null ? null : new Point(xs[id], ys[id]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 半径查询，结果按距离升序
+     *
+     * @param center 中心点
+     * @param meters 半径（米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @return 与redis GEORADIUS WITHCOORD WITHDIST ASC 相同结构的结果，距离单位为千米
+     */
+    public List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double meters, int limit) {
+        double x = center.getX();
+        double y = center.getY();
+        double dy = GeoUtils.latitudeDelta(meters);
+        double dx = GeoUtils.longitudeDelta(meters, y);
+
+        lock.readLock().lock();
+        try {
+            Hits hits = new Hits();
+            int minRow = row(Math.max(y - dy, -90));
+            int maxRow = row(Math.min(y + dy, 90));
+            int minColumn = column(x - dx);
+            int maxColumn = column(x + dx);
+            int spanColumns = dx >= 180 ? columns : Math.floorMod(maxColumn - minColumn, columns) + 1;
+            long scanCells = (long) spanColumns * (maxRow - minRow + 1);
+            if (scanCells > cells.size()) {
+                // 需要扫描的网格比已有的网格还多时，直接遍历已有的网格
+                for (Cell cell : cells.values()) {
+                    collect(cell, x, y, meters, hits);
+                }
+            } else {
+                for (int r = minRow; r <= maxRow; r++) {
+                    for (int c = 0; c < spanColumns; c++) {
+                        collect(cells.get(cellId(Math.floorMod(minColumn + c, columns), r)), x, y, meters, hits);
+                    }
+                }
+            }
+
+            Integer[] order = new Integer[hits.count];
+            for (int i = 0; i < hits.count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(hits.distances[a], hits.distances[b]));
+            int resultSize = limit > 0 ? Math.min(limit, hits.count) : hits.count;
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results = new ArrayList<>(resultSize);
+            for (int i = 0; i < resultSize; i++) {
+                int id = hits.ids[order[i]];
+                results.add(new GeoResult<>(
+                        new RedisGeoCommands.GeoLocation<>(names[id], new Point(xs[id], ys[id])),
+                        new Distance(hits.distances[order[i]] / 1000, Metrics.KILOMETERS)
+                ));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collect(Cell cell, double x, double y, double meters, Hits hits) {
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.size; i++) {
+            int id = cell.members[i];
+            double distance = GeoUtils.distance(x, y, xs[id], ys[id]);
+            if (distance <= meters) {
+                hits.add(id, distance);
+            }
+        }
+    }
+
+    /**
+     * 成员数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ids.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 开始与redis同步，之后的写入会被记录下来
+     */
+    public void beginReconcile() {
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 使用redis中的全量数据替换索引，同步期间被写入过的成员保留当前的数据
+     *
+     * @param snapshot 开始同步后从redis读取的全量数据
+     */
+    public void finishReconcile(Map<String, Point> snapshot) {
+        lock.writeLock().lock();
+        try {
+            Set<String> keep = touched == null ? new HashSet<>() : touched;
+            touched = null;
+            for (String name : new ArrayList<>(ids.keySet())) {
+                if (!keep.contains(name) && !snapshot.containsKey(name)) {
+                    doRemove(name);
+                }
+            }
+            snapshot.forEach((name, point) -> {
+                if (!keep.contains(name)) {
+                    doPut(name, point.getX(), point.getY());
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doPut(String name, double x, double y) {
+        if (touched != null) {
+            touched.add(name);
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            long oldCell = cellId(column(xs[id]), row(ys[id]));
+            long newCell = cellId(column(x), row(y));
+            xs[id] = x;
+            ys[id] = y;
+            if (oldCell != newCell) {
+                removeFromCell(oldCell, id);
+                cells.computeIfAbsent(newCell, key -> new Cell()).add(id);
+            }
+            return;
+        }
+        int newId = freeSize > 0 ? free[--freeSize] : size++;
+        if (newId == names.length) {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        names[newId] = name;
+        xs[newId] = x;
+        ys[newId] = y;
+        ids.put(name, newId);
+        cells.computeIfAbsent(cellId(column(x), row(y)), key -> new Cell()).add(newId);
+    }
+
+    private void doRemove(String name) {
+        if (touched != null) {
+            touched.add(name);
+        }
+        Integer id = ids.remove(name);
+        if (id == null) {
+            return;
+        }
+        removeFromCell(cellId(column(xs[id]), row(ys[id])), id);
+        names[id] = null;
+        if (freeSize == free.length) {
+            free = Arrays.copyOf(free, freeSize * 2);
+        }
+        free[freeSize++] = id;
+    }
+
+    private void removeFromCell(long cellId, int id) {
+        Cell cell = cells.get(cellId);
+        if (cell != null && cell.remove(id) && cell.size == 0) {
+            cells.remove(cellId);
+        }
+    }
+
+    private int column(double x) {
+        return Math.floorMod((int) Math.floor((x + 180) / cellSize), columns);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y + 90) / cellSize);
+    }
+
+    private static long cellId(int column, int row) {
+        return ((long) row << 32) | column;
+    }
+
+    /**
+     * 半径查询命中的成员下标及距离
+     */
+    private static final class Hits {
+
+        private int[] ids = new int[16];
+
+        private double[] distances = new double[16];
+
+        private int count;
+
+        private void add(int id, double distance) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                distances = Arrays.copyOf(distances, count * 2);
+            }
+            ids[count] = id;
+            distances[count++] = distance;
+        }
+    }
+
+    /**
+     * 网格，保存成员下标
+     */
+    private static final class Cell {
+
+        private int[] members = new int[4];
+
+        private int size;
+
+        private void add(int id) {
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+            }
+            members[size++] = id;
+        }
+
+        private boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (members[i] == id) {
+                    members[i] = members[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
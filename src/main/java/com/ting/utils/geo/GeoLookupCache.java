@@ -0,0 +1,291 @@
+package com.ting.utils.geo;
+
+import com.ting.utils.cache.CacheStats;
+import com.ting.utils.cache.LocalCache;
+import com.ting.utils.cache.SingleFlight;
+import lombok.EqualsAndHashCode;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * geo查询的请求合并与结果缓存
+ * <p>
+ * 按成员查询经纬度时，相同成员（或相同成员列表）的并发查询只访问一次redis，不缓存结果；
+ * 半径查询开启缓存后，把中心点按精度取整、半径按精度向上取整作为key，以取整后的中心点为圆心、
+ * 加上中心点取整误差后的半径查询并缓存，再按请求原始的中心点和半径过滤并重新计算距离，
+ * 结果与直接查询一致。缓存的结果被limit截断时，只有能证明前limit个结果没有遗漏才使用缓存，否则直接查询
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoLookupCache {
+
+    private final SingleFlight<Object, List<Point>> positions = new SingleFlight<>();
+
+    /**
+     * 未开启缓存时为null
+     */
+    private final LocalCache<RadiusKey, Candidates> radius;
+
+    private final double precision;
+
+    private final double radiusPrecision;
+
+    public GeoLookupCache(GeoProperties.Cache properties) {
+        Assert.isTrue(properties.getPrecision() > 0, "中心点精度必须大于0");
+        Assert.isTrue(properties.getRadiusPrecision() > 0, "半径精度必须大于0");
+        this.radius = properties.isEnabled()
+                ? new LocalCache<>(properties.getMaximumSize(), properties.getTtl())
+                : null;
+        this.precision = properties.getPrecision();
+        this.radiusPrecision = properties.getRadiusPrecision();
+    }
+
+    /**
+     * 查询单个成员的经纬度，合并并发的相同查询
+     *
+     * @param name   成员
+     * @param loader 实际的查询
+     * @return 经纬度
+     */
+    public List<Point> position(String name, Supplier<List<Point>> loader) {
+        return positions.execute(name, loader);
+    }
+
+    /**
+     * 查询多个成员的经纬度，合并并发的相同查询
+     *
+     * @param names  成员
+     * @param loader 实际的查询
+     * @return 经纬度
+     */
+    public List<Point> position(String[] names, Supplier<List<Point>> loader) {
+        return positions.execute(Arrays.asList(names), loader);
+    }
+
+    /**
+     * 半径查询，开启缓存时从取整后的中心点查询的候选结果中过滤
+     *
+     * @param center 中心点
+     * @param km     半径（千米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @param loader 实际的查询
+     * @return 按距离升序的结果
+     */
+    public List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double km, int limit,
+                                                                        RadiusLoader loader) {
+        if (radius == null) {
+            return loader.load(center, km, limit);
+        }
+        RadiusKey key = key(center, km, limit);
+        Candidates candidates = radius.get(key, k -> {
+            Point snapped = snapped(k);
+            int candidateLimit = candidateLimit(k);
+            return new Candidates(snapped, candidateLimit, loader.load(snapped, coverage(k, snapped), candidateLimit));
+        });
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content = candidates.filter(center, km, limit);
+        return content != null ? content : loader.load(center, km, limit);
+    }
+
+    /**
+     * 异步查询成员的经纬度，合并并发的相同查询
+     *
+     * @param names  成员
+     * @param loader 实际的查询
+     * @return 经纬度
+     */
+    public CompletableFuture<List<Point>> positionAsync(String[] names,
+                                                       Supplier<CompletableFuture<List<Point>>> loader) {
+        return positions.executeAsync(names.length == 1 ? names[0] : Arrays.asList(names), loader);
+    }
+
+    /**
+     * 异步的半径查询，与{@link #radius(Point, double, int, RadiusLoader)}使用同一个缓存；
+     * 未命中时不合并并发的相同查询
+     *
+     * @param center 中心点
+     * @param km     半径（千米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @param loader 实际的查询
+     * @return 按距离升序的结果
+     */
+    public CompletableFuture<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> radiusAsync(
+            Point center, double km, int limit, AsyncRadiusLoader loader) {
+        if (radius == null) {
+            return loader.load(center, km, limit);
+        }
+        RadiusKey key = key(center, km, limit);
+        Candidates cached = radius.getIfPresent(key);
+        CompletableFuture<Candidates> future;
+        if (cached != null) {
+            future = CompletableFuture.completedFuture(cached);
+        } else {
+            Point snapped = snapped(key);
+            int candidateLimit = candidateLimit(key);
+            future = loader.load(snapped, coverage(key, snapped), candidateLimit).thenApply(content -> {
+                Candidates candidates = new Candidates(snapped, candidateLimit, content);
+                radius.put(key, candidates);
+                return candidates;
+            });
+        }
+        return future.thenCompose(candidates -> {
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content = candidates.filter(center, km, limit);
+            return content != null ? CompletableFuture.completedFuture(content) : loader.load(center, km, limit);
+        });
+    }
+
+    /**
+     * @return key:positions为请求合并，radius为半径缓存
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Long> singleFlight = new LinkedHashMap<>();
+        singleFlight.put("calls", positions.getCalls());
+        singleFlight.put("shared", positions.getShared());
+        stats.put("positions", singleFlight);
+        CacheStats cacheStats = radius == null ? null : radius.stats();
+        stats.put("radius", cacheStats);
+        return stats;
+    }
+
+    private RadiusKey key(Point center, double km, int limit) {
+        return new RadiusKey(Math.round(center.getX() / precision), Math.round(center.getY() / precision),
+                Math.max(1, (long) Math.ceil(km / radiusPrecision)), Math.max(limit, 0));
+    }
+
+    private Point snapped(RadiusKey key) {
+        return new Point(key.x * precision, key.y * precision);
+    }
+
+    /**
+     * 候选结果的数量，多取一倍使原始中心点偏离取整中心点时前limit个结果大多仍在候选结果中
+     *
+     * @param key key
+     * @return 小于等于0时不限制
+     */
+    private static int candidateLimit(RadiusKey key) {
+        return key.limit > 0 ? (int) Math.min(Integer.MAX_VALUE, key.limit * 2L) : 0;
+    }
+
+    /**
+     * 候选结果的查询半径：取整后的半径加上落在该key上的中心点到取整中心点的最大距离
+     *
+     * @param key     key
+     * @param snapped 取整后的中心点
+     * @return 半径（千米）
+     */
+    private double coverage(RadiusKey key, Point snapped) {
+        double half = precision / 2;
+        double x = snapped.getX();
+        double y = snapped.getY();
+        double margin = Math.max(GeoUtils.distance(x, y, x + half, y + half), GeoUtils.distance(x, y, x + half, y - half));
+        return key.radius * radiusPrecision + margin / 1000;
+    }
+
+    /**
+     * 半径查询
+     */
+    @FunctionalInterface
+    public interface RadiusLoader {
+
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> load(Point center, double km, int limit);
+    }
+
+    /**
+     * 以取整后的中心点查询的候选结果
+     */
+    private static final class Candidates {
+
+        private final Point center;
+
+        private final List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content;
+
+        /**
+         * 是否被limit截断，截断时超过最后一个结果距离的成员没有包含在候选结果中
+         */
+        private final boolean truncated;
+
+        private Candidates(Point center, int limit, List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content) {
+            this.center = center;
+            this.content = content;
+            this.truncated = limit > 0 && content.size() >= limit;
+        }
+
+        /**
+         * 按原始的中心点和半径过滤并重新计算距离
+         *
+         * @param origin 原始的中心点
+         * @param km     原始的半径（千米）
+         * @param limit  最多返回的数量，小于等于0时不限制
+         * @return 候选结果不能保证完整时返回null
+         */
+        private List<GeoResult<RedisGeoCommands.GeoLocation<String>>> filter(Point origin, double km, int limit) {
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> result = new ArrayList<>();
+            for (GeoResult<RedisGeoCommands.GeoLocation<String>> item : content) {
+                Point point = item.getContent().getPoint();
+                if (point == null) {
+                    return null;
+                }
+                double distance = GeoUtils.distance(origin.getX(), origin.getY(), point.getX(), point.getY()) / 1000;
+                if (distance <= km) {
+                    result.add(new GeoResult<>(item.getContent(), new Distance(distance, Metrics.KILOMETERS)));
+                }
+            }
+            result.sort(Comparator.comparingDouble(item -> item.getDistance().getValue()));
+            int size = limit > 0 ? Math.min(limit, result.size()) : result.size();
+            if (truncated) {
+                // 候选结果包含了到取整中心点不超过last的全部成员，由三角不等式，到原始中心点不超过safe的成员都不会遗漏
+                double last = content.get(content.size() - 1).getDistance().in(Metrics.KILOMETERS).getValue();
+                double safe = last - GeoUtils.distance(origin.getX(), origin.getY(), center.getX(), center.getY()) / 1000;
+                boolean complete = km <= safe
+                        || (size == limit && result.get(size - 1).getDistance().getValue() <= safe);
+                if (!complete) {
+                    return null;
+                }
+            }
+            return size == result.size() ? result : new ArrayList<>(result.subList(0, size));
+        }
+    }
+
+    @EqualsAndHashCode
+    private static final class RadiusKey {
+
+        private final long x;
+
+        private final long y;
+
+        private final long radius;
+
+        private final int limit;
+
+        private RadiusKey(long x, long y, long radius, int limit) {
+            this.x = x;
+            this.y = y;
+            this.radius = radius;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * 异步的半径查询
+     */
+    @FunctionalInterface
+    public interface AsyncRadiusLoader {
+
+        CompletableFuture<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> load(Point center, double km, int limit);
+    }
+}
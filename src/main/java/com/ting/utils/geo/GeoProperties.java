@@ -0,0 +1,177 @@
+package com.ting.utils.geo;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * geo配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.geo")
+public class GeoProperties {
+
+    /**
+     * 内存索引
+     */
+    private Index index = new Index();
+
+    /**
+     * 批量导入
+     */
+    private Import importer = new Import();
+
+    /**
+     * 分页查询
+     */
+    private Search search = new Search();
+
+    /**
+     * 按geohash分区
+     */
+    private Partition partition = new Partition();
+
+    /**
+     * 地理围栏
+     */
+    private Fence fence = new Fence();
+
+    /**
+     * 查询合并与缓存
+     */
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Index {
+
+        /**
+         * 是否开启内存索引
+         */
+        private boolean enabled;
+
+        /**
+         * 网格的经纬度步长（度）
+         */
+        private double cellSize = 0.05;
+
+        /**
+         * 与redis全量同步的间隔
+         */
+        private Duration reconcileInterval = Duration.ofMinutes(1);
+
+        /**
+         * 全量同步时每次从redis读取的数量
+         */
+        private int reconcileBatchSize = 1000;
+    }
+
+    @Data
+    public static class Import {
+
+        /**
+         * 每条GEOADD的数量
+         */
+        private int batchSize = 1000;
+
+        /**
+         * 请求参数中允许的最大batchSize
+         */
+        private int maxBatchSize = 10000;
+
+        /**
+         * 每次pipeline发送的GEOADD数量
+         */
+        private int pipelineDepth = 8;
+    }
+
+    @Data
+    public static class Search {
+
+        /**
+         * 默认每页数量
+         */
+        private int defaultLimit = 100;
+
+        /**
+         * 最大每页数量
+         */
+        private int maxLimit = 1000;
+
+        /**
+         * 分页最多能翻到的结果数量，redis的半径查询只能从最近的点开始取，翻得越深每页越慢
+         */
+        private int maxDepth = 10000;
+    }
+
+    @Data
+    public static class Partition {
+
+        /**
+         * 是否开启分区，不能与内存索引同时开启
+         */
+        private boolean enabled;
+
+        /**
+         * 分区使用的geohash字符数，4位约为39km*20km
+         */
+        private int precision = 4;
+
+        /**
+         * 半径查询时同时查询的分区数量
+         */
+        private int parallelism = 8;
+
+        /**
+         * 单次查询最多按geohash计算的分区数量，超过时改为从写入过的分区中筛选与查询范围相交的
+         */
+        private int maxPartitionsPerQuery = 64;
+    }
+
+    @Data
+    public static class Fence {
+
+        /**
+         * 围栏网格的经纬度步长（度）
+         */
+        private double cellSize = 0.1;
+
+        /**
+         * 外接矩形覆盖的网格超过该数量时不登记到网格
+         */
+        private int maxCellsPerFence = 4096;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否开启半径查询缓存，按成员查询的请求合并始终开启
+         */
+        private boolean enabled;
+
+        /**
+         * 最多缓存的半径查询数量
+         */
+        private int maximumSize = 10000;
+
+        /**
+         * 写入后的过期时间
+         */
+        private Duration ttl = Duration.ofSeconds(1);
+
+        /**
+         * 中心点经纬度的取整精度（度），0.001约为100米
+         */
+        private double precision = 0.001;
+
+        /**
+         * 半径的取整精度（千米）
+         */
+        private double radiusPrecision = 0.1;
+    }
+}
@@ -0,0 +1,364 @@
+package com.ting.utils.geo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metric;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 半径查询结果的列式二进制编码
+ * <p>
+ * 格式（整数均为varint，带符号的先做zigzag）：
+ * <pre>
+ * 版本(1字节) 数量n 距离单位缩写
+ * 字典大小m，m个按字典序排列的成员名：与前一个相同的前缀字节数、剩余字节数、剩余字节
+ * n个成员在字典中的下标
+ * n个经度、n个纬度：乘以10^6取整后与前一个的差值
+ * n个距离：乘以10^4取整后与前一个的差值
+ * </pre>
+ * 经纬度精度约0.1米，低于redis自身52位geohash的精度损失；同一列的数据连续存放，压缩后的效果更好
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoResultCodec {
+
+    /**
+     * 列式二进制
+     */
+    public static final String COLUMNAR_VALUE = "application/x-geo-columnar";
+
+    /**
+     * deflate压缩的列式二进制
+     */
+    public static final String COLUMNAR_DEFLATE_VALUE = "application/x-geo-columnar-deflate";
+
+    public static final MediaType COLUMNAR = MediaType.parseMediaType(COLUMNAR_VALUE);
+
+    public static final MediaType COLUMNAR_DEFLATE = MediaType.parseMediaType(COLUMNAR_DEFLATE_VALUE);
+
+    private static final int VERSION = 1;
+
+    private static final double COORDINATE_SCALE = 1e6;
+
+    private static final double DISTANCE_SCALE = 1e4;
+
+    private GeoResultCodec() {
+    }
+
+    /**
+     * 编码，不关闭输出流
+     *
+     * @param results    半径查询结果
+     * @param out        输出流
+     * @param compressed 是否使用deflate压缩
+     * @throws IOException 写入失败
+     */
+    public static void encode(List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results, OutputStream out,
+                              boolean compressed) throws IOException {
+        if (!compressed) {
+            out.write(encode(results));
+            return;
+        }
+        // 自己创建的Deflater不会随DeflaterOutputStream释放，需要手动end释放本地内存
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater);
+            stream.write(encode(results));
+            stream.finish();
+            stream.flush();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 编码
+     *
+     * @param results 半径查询结果
+     * @return 列式二进制
+     */
+    public static byte[] encode(List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results) {
+        int n = results.size();
+        Writer writer = new Writer(16 + n * 16);
+        writer.writeByte(VERSION);
+        writer.writeVarint(n);
+        writer.writeLengthPrefixed(n == 0 ? new byte[0] : results.get(0).getDistance().getMetric().getAbbreviation()
+                .getBytes(StandardCharsets.UTF_8));
+
+        // 字典
+        String[] dictionary = new String[n];
+        for (int i = 0; i < n; i++) {
+            dictionary[i] = results.get(i).getContent().getName();
+        }
+        Arrays.sort(dictionary);
+        Map<String, Integer> indexes = new HashMap<>(n * 2);
+        byte[] previous = new byte[0];
+        int size = 0;
+        for (String name : dictionary) {
+            if (indexes.containsKey(name)) {
+                continue;
+            }
+            indexes.put(name, size++);
+        }
+        writer.writeVarint(size);
+        for (int i = 0; i < n; i++) {
+            if (i > 0 && dictionary[i].equals(dictionary[i - 1])) {
+                continue;
+            }
+            byte[] bytes = dictionary[i].getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            int max = Math.min(bytes.length, previous.length);
+            while (shared < max && bytes[shared] == previous[shared]) {
+                shared++;
+            }
+            writer.writeVarint(shared);
+            writer.writeVarint(bytes.length - shared);
+            writer.write(bytes, shared, bytes.length - shared);
+            previous = bytes;
+        }
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> result : results) {
+            writer.writeVarint(indexes.get(result.getContent().getName()));
+        }
+
+        // 经度、纬度、距离
+        long last = 0;
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> result : results) {
+            long value = Math.round(result.getContent().getPoint().getX() * COORDINATE_SCALE);
+            writer.writeSignedVarint(value - last);
+            last = value;
+        }
+        last = 0;
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> result : results) {
+            long value = Math.round(result.getContent().getPoint().getY() * COORDINATE_SCALE);
+            writer.writeSignedVarint(value - last);
+            last = value;
+        }
+        last = 0;
+        for (GeoResult<RedisGeoCommands.GeoLocation<String>> result : results) {
+            long value = Math.round(result.getDistance().getValue() * DISTANCE_SCALE);
+            writer.writeSignedVarint(value - last);
+            last = value;
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 解码
+     *
+     * @param in         输入流
+     * @param compressed 是否为deflate压缩的
+     * @return 半径查询结果
+     * @throws IOException 读取失败或格式错误
+     */
+    public static List<GeoResult<RedisGeoCommands.GeoLocation<String>>> decode(InputStream in, boolean compressed)
+            throws IOException {
+        Reader reader = new Reader(compressed ? new InflaterInputStream(in) : in);
+        int version = reader.readByte();
+        Assert.state(version == VERSION, "不支持的版本：" + version);
+        int n = (int) reader.readVarint();
+        Metric metric = metric(new String(reader.readBytes((int) reader.readVarint()), StandardCharsets.UTF_8));
+
+        String[] dictionary = new String[(int) reader.readVarint()];
+        byte[] previous = new byte[0];
+        for (int i = 0; i < dictionary.length; i++) {
+            int shared = (int) reader.readVarint();
+            byte[] suffix = reader.readBytes((int) reader.readVarint());
+            byte[] bytes = Arrays.copyOf(previous, shared + suffix.length);
+            System.arraycopy(suffix, 0, bytes, shared, suffix.length);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+            previous = bytes;
+        }
+        int[] names = new int[n];
+        for (int i = 0; i < n; i++) {
+            names[i] = (int) reader.readVarint();
+        }
+        long[] xs = reader.readDeltas(n);
+        long[] ys = reader.readDeltas(n);
+        long[] distances = reader.readDeltas(n);
+
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            results.add(new GeoResult<>(
+                    new RedisGeoCommands.GeoLocation<>(dictionary[names[i]],
+                            new Point(xs[i] / COORDINATE_SCALE, ys[i] / COORDINATE_SCALE)),
+                    new Distance(distances[i] / DISTANCE_SCALE, metric)));
+        }
+        return results;
+    }
+
+    private static Metric metric(String abbreviation) {
+        for (Metrics metric : Metrics.values()) {
+            if (metric.getAbbreviation().equals(abbreviation)) {
+                return metric;
+            }
+        }
+        return Metrics.NEUTRAL;
+    }
+
+    /**
+     * 与JSON（直接序列化GeoResult）、gzip压缩的JSON比较大小和编码耗时
+     */
+    public static void main(String[] args) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int n : new int[]{100, 1000, 10000}) {
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> results = new ArrayList<>(n);
+            double distance = 0;
+            for (int i = 0; i < n; i++) {
+                distance += random.nextDouble() / n * 5;
+                results.add(new GeoResult<>(
+                        new RedisGeoCommands.GeoLocation<>("store:" + random.nextInt(1_000_000),
+                                new Point(116 + random.nextDouble() * 0.1, 39.9 + random.nextDouble() * 0.1)),
+                        new Distance(Math.round(distance * 1e4) / 1e4, Metrics.KILOMETERS)));
+            }
+            int rounds = Math.max(20, 200_000 / n);
+            long[] sizes = new long[4];
+            long[] nanos = new long[4];
+            for (int round = 0; round < rounds * 2; round++) {
+                boolean measure = round >= rounds;
+                for (int format = 0; format < 4; format++) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    long start = System.nanoTime();
+                    switch (format) {
+                        case 0:
+                            objectMapper.writeValue(out, results);
+                            break;
+                        case 1:
+                            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                                objectMapper.writeValue(gzip, results);
+                            }
+                            break;
+                        case 2:
+                            encode(results, out, false);
+                            break;
+                        default:
+                            encode(results, out, true);
+                    }
+                    if (measure) {
+                        nanos[format] += System.nanoTime() - start;
+                        sizes[format] = out.size();
+                    }
+                }
+            }
+            Assert.state(decode(new ByteArrayInputStream(encode(results)), false).size() == n, "解码失败");
+            String[] names = {"json", "json+gzip", "columnar", "columnar+deflate"};
+            System.out.println("结果数量:" + n);
+            for (int format = 0; format < 4; format++) {
+                System.out.printf("  %-18s %10d字节 %10.1f微秒%n", names[format], sizes[format],
+                        nanos[format] / 1000.0 / rounds);
+            }
+        }
+    }
+
+    /**
+     * 写入varint的字节数组
+     */
+    private static final class Writer extends ByteArrayOutputStream {
+
+        private Writer(int size) {
+            super(size);
+        }
+
+        private void writeByte(int value) {
+            write(value);
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        private void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeLengthPrefixed(byte[] bytes) {
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * 读取varint
+     */
+    private static final class Reader {
+
+        private final InputStream in;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        private int readByte() throws IOException {
+            int value = in.read();
+            if (value < 0) {
+                throw new EOFException();
+            }
+            return value;
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("varint过长");
+        }
+
+        private long[] readDeltas(int n) throws IOException {
+            long[] values = new long[n];
+            long last = 0;
+            for (int i = 0; i < n; i++) {
+                long zigzag = readVarint();
+                last += (zigzag >>> 1) ^ -(zigzag & 1);
+                values[i] = last;
+            }
+            return values;
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            byte[] bytes = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                int read = in.read(bytes, offset, length - offset);
+                if (read < 0) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.ting.utils.geo;
+
+import io.lettuce.core.GeoArgs;
+import io.lettuce.core.GeoSearch;
+import io.lettuce.core.GeoWithin;
+import io.lettuce.core.api.async.RedisGeoAsyncCommands;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 分页的半径查询
+ * <p>
+ * 按(距离, 名称)排序，cursor记录上一页最后一条的距离和名称，下一页只返回排在它之后的点，
+ * 翻页期间新增或删除的点不会造成重复或遗漏；redis的半径查询只能从最近的点开始取，
+ * 每页仍要取出 已翻过的数量 + limit + 1 条，所以最多只能翻到前maxDepth条；
+ * any模式使用 GEOSEARCH ... COUNT n ANY，redis找到n个结果后立即返回，不保证是最近的n个（需要redis 6.2）；
+ * 开启分区时any模式退化为普通的前n个结果
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoSearcher {
+
+    private static final Comparator<GeoResult<RedisGeoCommands.GeoLocation<String>>> ORDER =
+            Comparator.<GeoResult<RedisGeoCommands.GeoLocation<String>>>comparingDouble(result -> result.getDistance().getValue())
+                    .thenComparing(result -> result.getContent().getName());
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String key;
+
+    private final LocalGeoIndex localGeoIndex;
+
+    private final PartitionedGeoStore partitionedGeoStore;
+
+    /**
+     * 分页最多能翻到的结果数量
+     */
+    private final int maxDepth;
+
+    public GeoSearcher(StringRedisTemplate stringRedisTemplate, String key,
+                       LocalGeoIndex localGeoIndex, PartitionedGeoStore partitionedGeoStore, int maxDepth) {
+        Assert.isTrue(maxDepth > 0, "maxDepth必须大于0");
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key;
+        this.localGeoIndex = localGeoIndex;
+        this.partitionedGeoStore = partitionedGeoStore;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * 半径查询
+     *
+     * @param center 中心点
+     * @param km     半径（千米）
+     * @param cursor 上一页返回的nextCursor，第一页为null
+     * @param limit  每页数量
+     * @param any    是否使用any模式，any模式不支持分页
+     * @return 一页的数据，按距离升序
+     */
+    public Page search(Point center, double km, String cursor, int limit, boolean any) {
+        Assert.isTrue(limit > 0, "limit必须大于0");
+        if (any) {
+            return new Page(partitionedGeoStore == null ? searchAny(center, km, limit)
+                    : partitionedGeoStore.radius(center, km, limit), null);
+        }
+        Cursor after = Cursor.decode(cursor);
+        long depth = after == null ? 0 : after.depth;
+        if (depth >= maxDepth) {
+            return new Page(Collections.emptyList(), null);
+        }
+        long count = Math.min(depth + limit, maxDepth) + 1;
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content = new ArrayList<>(radius(center, km, count));
+        content.sort(ORDER);
+
+        int start = 0;
+        if (after != null) {
+            while (start < content.size() && after.compareTo(content.get(start)) >= 0) {
+                start++;
+            }
+        }
+        int end = (int) Math.min(start + (long) limit, content.size());
+        // 取出的数量达到count时，之后可能还有结果
+        boolean hasMore = end < content.size() || content.size() == count;
+        if (!hasMore || end >= maxDepth) {
+            return new Page(content.subList(start, end), null);
+        }
+        if (start == end) {
+            // 翻页期间新增的点把这一页挤到了count之外，保持位置，下一页取得更深
+            return new Page(Collections.emptyList(), new Cursor(end, after.distance, after.name).encode());
+        }
+        GeoResult<RedisGeoCommands.GeoLocation<String>> last = content.get(end - 1);
+        return new Page(content.subList(start, end),
+                new Cursor(end, last.getDistance().getValue(), last.getContent().getName()).encode());
+    }
+
+    /**
+     * 按距离升序取出前count个
+     */
+    private List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double km, long count) {
+        if (partitionedGeoStore != null) {
+            return partitionedGeoStore.radius(center, km, count);
+        }
+        if (localGeoIndex != null && localGeoIndex.isReady()) {
+            return localGeoIndex.radius(center, km * 1000, (int) Math.min(count, Integer.MAX_VALUE));
+        }
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .sortAscending()
+                .limit(count)
+                .includeCoordinates()
+                .includeDistance();
+        GeoResults<RedisGeoCommands.GeoLocation<String>> radius = stringRedisTemplate.opsForGeo()
+                .radius(key, new Circle(center, new Distance(km, Metrics.KILOMETERS)), args);
+        return radius == null ? Collections.emptyList() : radius.getContent();
+    }
+
+    private List<GeoResult<RedisGeoCommands.GeoLocation<String>>> searchAny(Point center, double km, int limit) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        GeoArgs args = new GeoArgs().withCount(limit, true).withCoordinates().withDistance().asc();
+        List<GeoWithin<byte[]>> found = stringRedisTemplate.execute((RedisCallback<List<GeoWithin<byte[]>>>) connection -> {
+            @SuppressWarnings("unchecked")
+            RedisGeoAsyncCommands<byte[], byte[]> commands = (RedisGeoAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            try {
+                return commands.geosearch(rawKey,
+                        GeoSearch.fromCoordinates(center.getX(), center.getY()),
+                        GeoSearch.byRadius(km, GeoArgs.Unit.km),
+                        args).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("GEOSEARCH被中断", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("GEOSEARCH执行失败", e.getCause());
+            }
+        });
+        if (found == null) {
+            return Collections.emptyList();
+        }
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content = new ArrayList<>(found.size());
+        for (GeoWithin<byte[]> item : found) {
+            content.add(new GeoResult<>(
+                    new RedisGeoCommands.GeoLocation<>(new String(item.getMember(), StandardCharsets.UTF_8),
+                            new Point(item.getCoordinates().getX().doubleValue(), item.getCoordinates().getY().doubleValue())),
+                    new Distance(item.getDistance(), Metrics.KILOMETERS)
+            ));
+        }
+        return content;
+    }
+
+    /**
+     * 一页的数据
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class Page {
+
+        private final List<GeoResult<RedisGeoCommands.GeoLocation<String>>> content;
+
+        /**
+         * 下一页的cursor，没有下一页时为null
+         */
+        private final String nextCursor;
+    }
+
+    /**
+     * 上一页最后一条的位置，编码为 "已翻过的数量,距离,名称" 的base64url
+     */
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    private static class Cursor {
+
+        /**
+         * 已翻过的数量，用来决定下一页要从redis取多少条
+         */
+        private final long depth;
+
+        private final double distance;
+
+        private final String name;
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 3);
+                long depth = Long.parseLong(parts[0]);
+                if (parts.length == 3 && depth >= 0) {
+                    return new Cursor(depth, Double.parseDouble(parts[1]), parts[2]);
+                }
+            } catch (IllegalArgumentException e) {
+                // base64和数字的格式错误
+                throw new IllegalArgumentException("cursor格式错误", e);
+            }
+            throw new IllegalArgumentException("cursor格式错误");
+        }
+
+        String encode() {
+            String raw = depth + "," + distance + "," + name;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 与结果按(距离, 名称)比较
+         */
+        int compareTo(GeoResult<RedisGeoCommands.GeoLocation<String>> result) {
+            int compare = Double.compare(distance, result.getDistance().getValue());
+            return compare != 0 ? compare : name.compareTo(result.getContent().getName());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.ting.utils.geo;
+
+/**
+ * 经纬度工具类
+ * <p>
+ * 距离计算与redis的GEODIST保持一致，使用半正矢公式和redis的地球半径
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeoUtils {
+
+    /**
+     * redis使用的地球半径（米）
+     */
+    public static final double EARTH_RADIUS_IN_METERS = 6372797.560856;
+
+    /**
+     * 有效经度为 -180 到 180 度
+     */
+    public static final double MAX_LONGITUDE = 180;
+
+    /**
+     * 有效纬度是从 -85.05112878 到 85.05112878 度
+     */
+    public static final double MAX_LATITUDE = 85.05112878;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * 经纬度是否在redis GEOADD允许的范围内
+     *
+     * @param x 经度
+     * @param y 纬度
+     * @return 是否有效
+     */
+    public static boolean isValid(double x, double y) {
+        return x >= -MAX_LONGITUDE && x <= MAX_LONGITUDE && y >= -MAX_LATITUDE && y <= MAX_LATITUDE;
+    }
+
+    /**
+     * 计算两点之间的距离
+     *
+     * @param x1 经度
+     * @param y1 纬度
+     * @param x2 经度
+     * @param y2 纬度
+     * @return 距离（米）
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        double lat1 = Math.toRadians(y1);
+        double lat2 = Math.toRadians(y2);
+        double u = Math.sin((lat2 - lat1) / 2);
+        double v = Math.sin(Math.toRadians(x2 - x1) / 2);
+        return 2.0 * EARTH_RADIUS_IN_METERS * Math.asin(Math.sqrt(u * u + Math.cos(lat1) * Math.cos(lat2) * v * v));
+    }
+
+    /**
+     * 距离对应的纬度跨度
+     *
+     * @param meters 距离（米）
+     * @return 纬度跨度（度）
+     */
+    public static double latitudeDelta(double meters) {
+        return Math.toDegrees(meters / EARTH_RADIUS_IN_METERS);
+    }
+
+    /**
+     * 在某个纬度上距离对应的经度跨度，靠近两极时返回360
+     *
+     * @param meters 距离（米）
+     * @param y      纬度
+     * @return 经度跨度（度）
+     */
+    public static double longitudeDelta(double meters, double y) {
+        double cos = Math.cos(Math.toRadians(Math.min(Math.abs(y) + latitudeDelta(meters), 90)));
+        if (cos <= 1e-12) {
+            return 360;
+        }
+        return Math.min(360, Math.toDegrees(meters / (EARTH_RADIUS_IN_METERS * cos)));
+    }
+}
@@ -0,0 +1,493 @@
+package com.ting.utils.geo;
+
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.geo.Polygon;
+import org.springframework.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 地理围栏
+ * <p>
+ * 围栏按外接矩形登记到固定步长的网格中，位置更新时只需要检查所在网格里的围栏；
+ * 查询不加锁，围栏的新增和删除加锁后逐个网格替换。每个设备只保存当前所在围栏的有序key数组，
+ * 与本次计算出的围栏对比后产生进入和离开事件。
+ * <p>
+ * 替换围栏时沿用原来的内部id，设备不会因为替换产生多余的事件；删除后内部id回收给新的围栏使用，
+ * key的高32位是内部id被回收的次数，设备上残留的已删除围栏的key不会与新的围栏混淆
+ * <p>
+ * 多边形按经纬度平面计算，围栏均不支持跨越180度经线
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class GeofenceEngine {
+
+    private static final int[] EMPTY = new int[0];
+
+    private static final long[] NONE = new long[0];
+
+    /**
+     * 网格的经纬度步长（度）
+     */
+    private final double cellSize;
+
+    /**
+     * 外接矩形覆盖的网格超过该数量时不登记到网格，每次都检查
+     */
+    private final int maxCellsPerFence;
+
+    /**
+     * 下标为围栏的内部id，删除后为null
+     */
+    private volatile Fence[] fences = new Fence[16];
+
+    private int nextId;
+
+    /**
+     * 已删除围栏的内部id，存储的是下一次使用时的key
+     */
+    private final Deque<Long> freeKeys = new ArrayDeque<>();
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * key:网格；value:外接矩形与网格相交的围栏内部id
+     */
+    private final Map<Long, int[]> cells = new ConcurrentHashMap<>();
+
+    /**
+     * 覆盖范围过大的围栏
+     */
+    private volatile int[] global = EMPTY;
+
+    /**
+     * key:设备；value:当前所在围栏的key，升序
+     */
+    private final Map<String, long[]> devices = new ConcurrentHashMap<>();
+
+    public GeofenceEngine(double cellSize, int maxCellsPerFence) {
+        Assert.isTrue(cellSize > 0, "网格步长必须大于0");
+        this.cellSize = cellSize;
+        this.maxCellsPerFence = maxCellsPerFence;
+    }
+
+    /**
+     * 登记圆形围栏，id已存在时替换
+     *
+     * @param id     围栏id
+     * @param circle 圆形
+     */
+    public void register(String id, Circle circle) {
+        Point center = circle.getCenter();
+        double meters = circle.getRadius().in(Metrics.KILOMETERS).getValue() * 1000;
+        Assert.isTrue(meters > 0, "半径必须大于0");
+        double dy = GeoUtils.latitudeDelta(meters);
+        double dx = GeoUtils.longitudeDelta(meters, center.getY());
+        register(new Fence(id, center.getX(), center.getY(), meters, null, null,
+                center.getX() - dx, center.getY() - dy, center.getX() + dx, center.getY() + dy));
+    }
+
+    /**
+     * 登记多边形围栏，id已存在时替换
+     *
+     * @param id      围栏id
+     * @param polygon 多边形
+     */
+    public void register(String id, Polygon polygon) {
+        List<Point> points = polygon.getPoints();
+        Assert.isTrue(points.size() >= 3, "多边形至少需要3个点");
+        double[] xs = new double[points.size()];
+        double[] ys = new double[points.size()];
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < points.size(); i++) {
+            xs[i] = points.get(i).getX();
+            ys[i] = points.get(i).getY();
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        register(new Fence(id, 0, 0, 0, xs, ys, minX, minY, maxX, maxY));
+    }
+
+    private synchronized void register(Fence fence) {
+        Integer existing = ids.get(fence.id);
+        Fence[] current = fences;
+        Fence old = existing == null ? null : current[existing];
+        int id;
+        if (old != null) {
+            id = existing;
+            fence.key = old.key;
+        } else {
+            fence.key = freeKeys.isEmpty() ? nextId++ : freeKeys.pop();
+            id = (int) fence.key;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+            }
+            ids.put(fence.id, id);
+        }
+        current[id] = fence;
+        fences = current;
+        // 先登记新的范围再删除旧范围多出的网格，替换过程中查询不会漏掉该围栏
+        index(id, fence);
+        if (old != null) {
+            unindex(id, old, fence);
+        }
+    }
+
+    /**
+     * 删除围栏
+     *
+     * @param id 围栏id
+     * @return 围栏不存在时返回false
+     */
+    public synchronized boolean remove(String id) {
+        Integer internal = ids.remove(id);
+        if (internal == null) {
+            return false;
+        }
+        Fence fence = fences[internal];
+        fences[internal] = null;
+        unindex(internal, fence, null);
+        freeKeys.push(fence.key + (1L << 32));
+        return true;
+    }
+
+    private void index(int id, Fence fence) {
+        if (isWide(fence)) {
+            if (!contains(global, id)) {
+                global = append(global, id);
+            }
+            return;
+        }
+        for (int r = row(fence.minY); r <= row(fence.maxY); r++) {
+            for (int c = column(fence.minX); c <= column(fence.maxX); c++) {
+                cells.compute(cellId(c, r), (key, members) -> members == null
+                        ? new int[]{id}
+                        : contains(members, id) ? members : append(members, id));
+            }
+        }
+    }
+
+    /**
+     * 从网格中删除围栏
+     *
+     * @param id    内部id
+     * @param fence 要删除的围栏
+     * @param keep  替换后的围栏，其覆盖的网格保留，删除时为null
+     */
+    private void unindex(int id, Fence fence, Fence keep) {
+        boolean keepCells = keep != null && !isWide(keep);
+        if (isWide(fence)) {
+            if (keep == null || keepCells) {
+                global = without(global, id);
+            }
+            return;
+        }
+        for (int r = row(fence.minY); r <= row(fence.maxY); r++) {
+            for (int c = column(fence.minX); c <= column(fence.maxX); c++) {
+                if (keepCells && covers(keep, c, r)) {
+                    continue;
+                }
+                cells.computeIfPresent(cellId(c, r), (key, members) -> {
+                    int[] next = without(members, id);
+                    return next.length == 0 ? null : next;
+                });
+            }
+        }
+    }
+
+    private boolean isWide(Fence fence) {
+        long columns = column(fence.maxX) - column(fence.minX) + 1;
+        long rows = row(fence.maxY) - row(fence.minY) + 1;
+        return columns * rows > maxCellsPerFence;
+    }
+
+    private boolean covers(Fence fence, int column, int row) {
+        return column >= column(fence.minX) && column <= column(fence.maxX)
+                && row >= row(fence.minY) && row <= row(fence.maxY);
+    }
+
+    /**
+     * 围栏数量
+     *
+     * @return 数量
+     */
+    public synchronized int size() {
+        return ids.size();
+    }
+
+    /**
+     * 设备位置更新
+     *
+     * @param deviceId 设备
+     * @param point    位置
+     * @return 进入和离开围栏的事件，没有变化时为空
+     */
+    public List<GeofenceEvent> update(String deviceId, Point point) {
+        long[] inside = locate(point.getX(), point.getY());
+        Fence[] current = fences;
+        List<GeofenceEvent> events = new ArrayList<>(0);
+        devices.compute(deviceId, (key, previous) -> {
+            long[] old = previous == null ? NONE : previous;
+            // 两个有序数组求差集
+            int i = 0;
+            int j = 0;
+            while (i < old.length || j < inside.length) {
+                if (j == inside.length || (i < old.length && old[i] < inside[j])) {
+                    Fence fence = fence(current, old[i]);
+                    if (fence != null) {
+                        events.add(new GeofenceEvent(deviceId, fence.id, GeofenceEvent.Type.EXIT, point));
+                    }
+                    i++;
+                } else if (i == old.length || inside[j] < old[i]) {
+                    Fence fence = fence(current, inside[j]);
+                    if (fence != null) {
+                        events.add(new GeofenceEvent(deviceId, fence.id, GeofenceEvent.Type.ENTER, point));
+                    }
+                    j++;
+                } else {
+                    i++;
+                    j++;
+                }
+            }
+            return inside.length == 0 ? null : inside;
+        });
+        return events.isEmpty() ? Collections.emptyList() : events;
+    }
+
+    /**
+     * 设备当前所在的围栏
+     *
+     * @param deviceId 设备
+     * @return 围栏id
+     */
+    public List<String> fencesOf(String deviceId) {
+        long[] inside = devices.getOrDefault(deviceId, NONE);
+        Fence[] current = fences;
+        List<String> list = new ArrayList<>(inside.length);
+        for (long key : inside) {
+            Fence fence = fence(current, key);
+            if (fence != null) {
+                list.add(fence.id);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 计算位置所在的围栏
+     *
+     * @param x 经度
+     * @param y 纬度
+     * @return 围栏的key，升序
+     */
+    private long[] locate(double x, double y) {
+        int[] candidates = cells.getOrDefault(cellId(column(x), row(y)), EMPTY);
+        int[] wide = global;
+        if (candidates.length == 0 && wide.length == 0) {
+            return NONE;
+        }
+        Fence[] current = fences;
+        long[] inside = new long[candidates.length + wide.length];
+        int size = 0;
+        for (int id : candidates) {
+            Fence fence = current[id];
+            if (fence != null && fence.contains(x, y)) {
+                inside[size++] = fence.key;
+            }
+        }
+        for (int id : wide) {
+            Fence fence = current[id];
+            if (fence != null && fence.contains(x, y)) {
+                inside[size++] = fence.key;
+            }
+        }
+        if (size == 0) {
+            return NONE;
+        }
+        long[] result = Arrays.copyOf(inside, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * 根据key获取围栏，内部id已被删除或回收给其他围栏时返回null
+     */
+    private static Fence fence(Fence[] current, long key) {
+        int id = (int) key;
+        Fence fence = id < current.length ? current[id] : null;
+        return fence != null && fence.key == key ? fence : null;
+    }
+
+    private int column(double x) {
+        return (int) Math.floor((x + 180) / cellSize);
+    }
+
+    private int row(double y) {
+        return (int) Math.floor((y + 90) / cellSize);
+    }
+
+    private static long cellId(int column, int row) {
+        return ((long) row << 32) | (column & 0xffffffffL);
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] next = Arrays.copyOf(array, array.length + 1);
+        next[array.length] = value;
+        return next;
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (int item : array) {
+            if (item == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] without(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                int[] next = new int[array.length - 1];
+                System.arraycopy(array, 0, next, 0, i);
+                System.arraycopy(array, i + 1, next, i, next.length - i);
+                return next;
+            }
+        }
+        return array;
+    }
+
+    /**
+     * 吞吐量测试：10万个围栏，多线程随机更新设备位置
+     */
+    public static void main(String[] args) throws Exception {
+        GeofenceEngine engine = new GeofenceEngine(0.1, 4096);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 围栏集中在115~118,38~41的范围内，一半圆形一半多边形
+        for (int i = 0; i < 100_000; i++) {
+            double x = 115 + random.nextDouble() * 3;
+            double y = 38 + random.nextDouble() * 3;
+            if (i % 2 == 0) {
+                engine.register("c" + i, new Circle(new Point(x, y),
+                        new Distance(0.2 + random.nextDouble(), Metrics.KILOMETERS)));
+            } else {
+                double d = 0.002 + random.nextDouble() * 0.01;
+                engine.register("p" + i, new Polygon(new Point(x - d, y - d), new Point(x + d, y - d),
+                        new Point(x + d, y + d), new Point(x, y + d * 2), new Point(x - d, y + d)));
+            }
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        int updates = 1_000_000;
+        int devices = 100_000;
+        for (int round = 0; round < 3; round++) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Long>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    long events = 0;
+                    for (int i = 0; i < updates / threads; i++) {
+                        Point point = new Point(115 + r.nextDouble() * 3, 38 + r.nextDouble() * 3);
+                        events += engine.update("d" + r.nextInt(devices), point).size();
+                    }
+                    return events;
+                }));
+            }
+            long events = 0;
+            for (Future<Long> future : futures) {
+                events += future.get();
+            }
+            long nanos = System.nanoTime() - start;
+            executor.shutdown();
+            System.out.printf("线程:%d 更新:%d 事件:%d 耗时:%dms 吞吐:%.0f次/秒%n",
+                    threads, updates, events, nanos / 1_000_000, updates * 1e9 / nanos);
+        }
+    }
+
+    /**
+     * 围栏，圆形时xs为null
+     */
+    private static final class Fence {
+
+        private final String id;
+
+        private final double centerX;
+
+        private final double centerY;
+
+        private final double meters;
+
+        private final double[] xs;
+
+        private final double[] ys;
+
+        private final double minX;
+
+        private final double minY;
+
+        private final double maxX;
+
+        private final double maxY;
+
+        /**
+         * 低32位为内部id，高32位为内部id被回收的次数，发布到fences之前赋值
+         */
+        private long key;
+
+        private Fence(String id, double centerX, double centerY, double meters, double[] xs, double[] ys,
+                      double minX, double minY, double maxX, double maxY) {
+            this.id = id;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.meters = meters;
+            this.xs = xs;
+            this.ys = ys;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        private boolean contains(double x, double y) {
+            if (x < minX || x > maxX || y < minY || y > maxY) {
+                return false;
+            }
+            if (xs == null) {
+                return GeoUtils.distance(centerX, centerY, x, y) <= meters;
+            }
+            // 射线法
+            boolean inside = false;
+            for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+                if ((ys[i] > y) != (ys[j] > y)
+                        && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
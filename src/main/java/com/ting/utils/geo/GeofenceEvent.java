@@ -0,0 +1,41 @@
+package com.ting.utils.geo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.geo.Point;
+
+/**
+ * 进出围栏事件
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class GeofenceEvent {
+
+    public enum Type {
+        /**
+         * 进入围栏
+         */
+        ENTER,
+        /**
+         * 离开围栏
+         */
+        EXIT
+    }
+
+    private String deviceId;
+
+    private String fenceId;
+
+    private Type type;
+
+    /**
+     * 触发事件的位置
+     */
+    private Point point;
+}
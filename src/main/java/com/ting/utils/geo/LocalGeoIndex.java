@@ -0,0 +1,151 @@
+package com.ting.utils.geo;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * redis geo集合的本地索引
+ * <p>
+ * redis仍然是唯一的数据源：写操作先写redis再同步写入本地索引，并定时从redis全量同步，
+ * 修正其他实例写入或写入失败造成的差异；首次同步完成前查询仍然走redis
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class LocalGeoIndex implements InitializingBean, DisposableBean {
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String key;
+
+    private final GeoProperties.Index properties;
+
+    private final GeoIndex index;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "geo-index-reconcile");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean ready;
+
+    public LocalGeoIndex(StringRedisTemplate stringRedisTemplate, String key, GeoProperties.Index properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = key;
+        this.properties = properties;
+        this.index = new GeoIndex(properties.getCellSize());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        long interval = properties.getReconcileInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::reconcile, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 首次同步是否完成
+     *
+     * @return 完成后才能使用本地索引查询
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void putAll(Map<String, Point> map) {
+        index.putAll(map);
+    }
+
+    public void removeAll(Collection<String> names) {
+        index.removeAll(names);
+    }
+
+    public List<Point> position(String... names) {
+        List<Point> points = new ArrayList<>(names.length);
+        for (String name : names) {
+            points.add(index.position(name));
+        }
+        return points;
+    }
+
+    /**
+     * 半径查询
+     *
+     * @param center 中心点
+     * @param meters 半径（米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @return 按距离升序的结果
+     */
+    public List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double meters, int limit) {
+        return index.radius(center, meters, limit);
+    }
+
+    /**
+     * 从redis全量同步
+     * <p>
+     * 使用ZSCAN遍历成员：同步期间有成员写入或删除时，按ZRANGE偏移量分页会跳过或重复成员，
+     * 而ZSCAN保证遍历期间一直存在的成员至少返回一次，重复返回的成员在快照中会被覆盖
+     */
+    public void reconcile() {
+        try {
+            long start = System.currentTimeMillis();
+            index.beginReconcile();
+            Map<String, Point> snapshot = new HashMap<>();
+            int batchSize = properties.getReconcileBatchSize();
+            ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+            try (Cursor<ZSetOperations.TypedTuple<String>> cursor = stringRedisTemplate.opsForZSet().scan(key, options)) {
+                List<String> batch = new ArrayList<>(batchSize);
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next().getValue());
+                    if (batch.size() >= batchSize) {
+                        loadPositions(batch, snapshot);
+                        batch.clear();
+                    }
+                }
+                loadPositions(batch, snapshot);
+            }
+            index.finishReconcile(snapshot);
+            ready = true;
+            log.info("geo本地索引同步完成，数量：{}，耗时：{}ms", index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("geo本地索引同步失败", e);
+        }
+    }
+
+    private void loadPositions(List<String> names, Map<String, Point> snapshot) {
+        if (names.isEmpty()) {
+            return;
+        }
+        String[] members = names.toArray(new String[0]);
+        List<Point> points = stringRedisTemplate.opsForGeo().position(key, members);
+        for (int i = 0; i < members.length && points != null; i++) {
+            if (points.get(i) != null) {
+                snapshot.put(members[i], points.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package com.ting.utils.geo;
+
+import lombok.Value;
+import org.springframework.data.geo.Circle;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 按geohash前缀分区的geo存储
+ * <p>
+ * 每个点按所在的geohash前缀写入 key:前缀 的集合，成员所在的分区记录在 key:index 的hash中；
+ * 半径查询计算覆盖的分区后并行查询，每个分区的结果都是按距离升序的，再通过有界的多路归并得到前limit个结果；
+ * 覆盖的分区过多时改为从 key:partitions 中登记过的分区里筛选与查询范围相交的分区。
+ * 分区可以通过templateResolver分布到不同的redis实例上。
+ * <p>
+ * 写入时先读出成员的原分区，再把 校验原分区→从原分区删除→写入新分区→更新索引 交给一个lua脚本执行，
+ * 脚本中发现原分区已被并发修改时不做任何修改，重新读取后重试，因此不会在原分区残留副本。
+ * 涉及的分区和索引分布在多个实例上时无法原子写入，按 写入新分区→比较并更新索引→从原分区删除 的顺序执行，
+ * 索引的更新同样会校验原分区；这时中途失败会在新分区多出一份，调用方重试同一批数据即可修复，
+ * 同一成员在两个分区之间来回并发移动时可能被后删除的一方误删，需要调用方对同一成员的更新串行化
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class PartitionedGeoStore {
+
+    /**
+     * 原分区被并发修改时的最大尝试次数
+     */
+    private static final int MAX_ATTEMPTS = 16;
+
+    /**
+     * 校验原分区后移动成员，只在索引和所有分区都在同一个实例上时使用，分区key因此通过ARGV传入
+     * <p>
+     * KEYS[1]：索引；ARGV：每5个一组，成员、读取到的原分区、新分区、经度、纬度，分区为空字符串表示不存在，新分区为空时删除；
+     * 返回：任意成员的原分区与读取时不一致时不做任何修改并返回0，否则返回1
+     */
+    private static final RedisScript<Long> MOVE = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 5 do\n" +
+            "  if (redis.call('HGET', KEYS[1], ARGV[i]) or '') ~= ARGV[i + 1] then\n" +
+            "    return 0\n" +
+            "  end\n" +
+            "end\n" +
+            "for i = 1, #ARGV, 5 do\n" +
+            "  local member, old, partition = ARGV[i], ARGV[i + 1], ARGV[i + 2]\n" +
+            "  if old ~= '' and old ~= partition then\n" +
+            "    redis.call('ZREM', old, member)\n" +
+            "  end\n" +
+            "  if partition == '' then\n" +
+            "    redis.call('HDEL', KEYS[1], member)\n" +
+            "  else\n" +
+            "    redis.call('GEOADD', partition, ARGV[i + 3], ARGV[i + 4], member)\n" +
+            "    redis.call('HSET', KEYS[1], member, partition)\n" +
+            "  end\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    /**
+     * 比较并更新索引，分区分布在多个实例上时使用
+     * <p>
+     * KEYS[1]：索引；ARGV：每3个一组，成员、读取到的原分区、新分区，分区为空字符串表示不存在，新分区为空时删除；
+     * 返回：任意成员的原分区与读取时不一致时不做任何修改并返回0，否则返回1
+     */
+    private static final RedisScript<Long> SWAP = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 3 do\n" +
+            "  if (redis.call('HGET', KEYS[1], ARGV[i]) or '') ~= ARGV[i + 1] then\n" +
+            "    return 0\n" +
+            "  end\n" +
+            "end\n" +
+            "for i = 1, #ARGV, 3 do\n" +
+            "  if ARGV[i + 2] == '' then\n" +
+            "    redis.call('HDEL', KEYS[1], ARGV[i])\n" +
+            "  else\n" +
+            "    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 2])\n" +
+            "  end\n" +
+            "end\n" +
+            "return 1", Long.class);
+
+    private final String key;
+
+    private final String indexKey;
+
+    /**
+     * 写入过的分区，覆盖的分区超过maxPartitionsPerQuery时从中查找与查询范围相交的分区
+     */
+    private final String registryKey;
+
+    private final GeoProperties.Partition properties;
+
+    /**
+     * 根据redis key获取所在实例的StringRedisTemplate
+     */
+    private final Function<String, StringRedisTemplate> templateResolver;
+
+    /**
+     * 根据redis key获取所在实例的ReactiveStringRedisTemplate，用于异步的新增、删除、按成员查询和半径查询
+     */
+    private final Function<String, ReactiveStringRedisTemplate> reactiveTemplateResolver;
+
+    public PartitionedGeoStore(String key, GeoProperties.Partition properties,
+                               Function<String, StringRedisTemplate> templateResolver,
+                               Function<String, ReactiveStringRedisTemplate> reactiveTemplateResolver) {
+        this.key = key;
+        this.indexKey = key + ":index";
+        this.registryKey = key + ":partitions";
+        this.properties = properties;
+        this.templateResolver = templateResolver;
+        this.reactiveTemplateResolver = reactiveTemplateResolver;
+    }
+
+    /**
+     * 新增或更新，点移动到其他分区时从原分区删除
+     *
+     * @param map key:成员；value:经纬度
+     */
+    public void add(Map<String, Point> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        write(new ArrayList<>(map.keySet()), map);
+    }
+
+    /**
+     * 通过响应式的客户端新增或更新，不占用调用线程
+     *
+     * @param map key:成员；value:经纬度
+     * @return 写入完成
+     */
+    public CompletableFuture<Void> addAsync(Map<String, Point> map) {
+        if (map.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return writeAsync(new ArrayList<>(map.keySet()), map, 1).toFuture();
+    }
+
+    /**
+     * 删除
+     *
+     * @param names 成员
+     */
+    public void remove(String... names) {
+        if (names.length == 0) {
+            return;
+        }
+        write(Arrays.asList(names), Collections.emptyMap());
+    }
+
+    /**
+     * 通过响应式的客户端删除，不占用调用线程
+     *
+     * @param names 成员
+     * @return 删除完成
+     */
+    public CompletableFuture<Void> removeAsync(String... names) {
+        if (names.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return writeAsync(Arrays.asList(names), Collections.emptyMap(), 1).toFuture();
+    }
+
+    /**
+     * 读取原分区后写入，原分区被并发修改时重试
+     *
+     * @param names  成员
+     * @param points 成员的新位置，不包含的成员会被删除
+     */
+    private void write(List<String> names, Map<String, Point> points) {
+        for (int attempt = 1; !apply(changes(names, points, partitions(names))); attempt++) {
+            Assert.state(attempt < MAX_ATTEMPTS, "geo分区并发更新冲突，重试" + MAX_ATTEMPTS + "次后仍未成功");
+        }
+    }
+
+    private Mono<Void> writeAsync(List<String> names, Map<String, Point> points, int attempt) {
+        return partitionsAsync(names)
+                .flatMap(partitions -> applyAsync(changes(names, points, partitions)))
+                .flatMap(applied -> {
+                    if (applied) {
+                        return Mono.<Void>empty();
+                    }
+                    if (attempt >= MAX_ATTEMPTS) {
+                        return Mono.<Void>error(new IllegalStateException(
+                                "geo分区并发更新冲突，重试" + MAX_ATTEMPTS + "次后仍未成功"));
+                    }
+                    return writeAsync(names, points, attempt + 1);
+                });
+    }
+
+    private List<Change> changes(List<String> names, Map<String, Point> points, List<String> oldPartitions) {
+        List<Change> changes = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            Point point = points.get(names.get(i));
+            changes.add(new Change(names.get(i), oldPartitions.get(i), point == null ? null : partitionKey(point), point));
+        }
+        return changes;
+    }
+
+    /**
+     * 写入一批修改，所有key都在同一个实例上时通过一个lua脚本原子执行
+     *
+     * @param changes 修改
+     * @return 原分区被并发修改时为false，这时没有做任何修改（跨实例时新分区可能已经写入）
+     */
+    private boolean apply(List<Change> changes) {
+        // 先登记分区再写入，查询时登记的分区总是包含所有有数据的分区
+        String[] partitions = adds(changes).keySet().toArray(new String[0]);
+        if (partitions.length > 0) {
+            template(registryKey).opsForSet().add(registryKey, partitions);
+        }
+        StringRedisTemplate index = template(indexKey);
+        if (colocated(changes, redisKey -> template(redisKey) == index)) {
+            return Long.valueOf(1).equals(index.execute(MOVE, Collections.singletonList(indexKey), moveArgs(changes)));
+        }
+        adds(changes).forEach((partition, points) -> template(partition).opsForGeo().add(partition, points));
+        if (!Long.valueOf(1).equals(index.execute(SWAP, Collections.singletonList(indexKey), swapArgs(changes)))) {
+            return false;
+        }
+        removes(changes).forEach((partition, members) ->
+                template(partition).opsForGeo().remove(partition, members.toArray(new String[0])));
+        return true;
+    }
+
+    private Mono<Boolean> applyAsync(List<Change> changes) {
+        String[] partitions = adds(changes).keySet().toArray(new String[0]);
+        Mono<Long> register = partitions.length == 0 ? Mono.empty()
+                : reactive(registryKey).opsForSet().add(registryKey, partitions);
+        return register.then(Mono.defer(() -> move(changes)));
+    }
+
+    private Mono<Boolean> move(List<Change> changes) {
+        ReactiveStringRedisTemplate index = reactive(indexKey);
+        if (colocated(changes, redisKey -> reactive(redisKey) == index)) {
+            return index.execute(MOVE, Collections.singletonList(indexKey), Arrays.asList(moveArgs(changes)))
+                    .next()
+                    .map(Long.valueOf(1)::equals);
+        }
+        return Flux.fromIterable(adds(changes).entrySet())
+                .concatMap(add -> reactive(add.getKey()).opsForGeo().add(add.getKey(), add.getValue()))
+                .then(index.execute(SWAP, Collections.singletonList(indexKey), Arrays.asList(swapArgs(changes))).next())
+                .flatMap(swapped -> {
+                    if (!Long.valueOf(1).equals(swapped)) {
+                        return Mono.just(false);
+                    }
+                    return Flux.fromIterable(removes(changes).entrySet())
+                            .concatMap(remove -> reactive(remove.getKey()).opsForGeo()
+                                    .remove(remove.getKey(), remove.getValue().toArray(new String[0])))
+                            .then(Mono.just(true));
+                });
+    }
+
+    /**
+     * 索引、原分区和新分区是否都在索引所在的实例上
+     */
+    private boolean colocated(List<Change> changes, Predicate<String> sameInstance) {
+        for (Change change : changes) {
+            if ((change.getOldPartition() != null && !sameInstance.test(change.getOldPartition()))
+                    || (change.getPartition() != null && !sameInstance.test(change.getPartition()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object[] moveArgs(List<Change> changes) {
+        Object[] args = new Object[changes.size() * 5];
+        int i = 0;
+        for (Change change : changes) {
+            args[i++] = change.getName();
+            args[i++] = nullToEmpty(change.getOldPartition());
+            args[i++] = nullToEmpty(change.getPartition());
+            args[i++] = change.getPoint() == null ? "" : String.valueOf(change.getPoint().getX());
+            args[i++] = change.getPoint() == null ? "" : String.valueOf(change.getPoint().getY());
+        }
+        return args;
+    }
+
+    private static Object[] swapArgs(List<Change> changes) {
+        Object[] args = new Object[changes.size() * 3];
+        int i = 0;
+        for (Change change : changes) {
+            args[i++] = change.getName();
+            args[i++] = nullToEmpty(change.getOldPartition());
+            args[i++] = nullToEmpty(change.getPartition());
+        }
+        return args;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * 按新分区分组
+     */
+    private static Map<String, Map<String, Point>> adds(List<Change> changes) {
+        Map<String, Map<String, Point>> adds = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (change.getPartition() != null) {
+                adds.computeIfAbsent(change.getPartition(), item -> new LinkedHashMap<>()).put(change.getName(), change.getPoint());
+            }
+        }
+        return adds;
+    }
+
+    /**
+     * 按需要删除的原分区分组，原分区与新分区相同时不需要删除
+     */
+    private static Map<String, List<String>> removes(List<Change> changes) {
+        Map<String, List<String>> removes = new LinkedHashMap<>();
+        for (Change change : changes) {
+            if (change.getOldPartition() != null && !change.getOldPartition().equals(change.getPartition())) {
+                removes.computeIfAbsent(change.getOldPartition(), item -> new ArrayList<>()).add(change.getName());
+            }
+        }
+        return removes;
+    }
+
+    /**
+     * 获取经纬度
+     *
+     * @param names 成员
+     * @return 与names一一对应，不存在时为null
+     */
+    public List<Point> position(String... names) {
+        Point[] points = new Point[names.length];
+        groups(names, partitions(Arrays.asList(names))).forEach((partition, indexes) -> {
+            String[] members = indexes.stream().map(i -> names[i]).toArray(String[]::new);
+            fill(points, indexes, template(partition).opsForGeo().position(partition, members));
+        });
+        return Arrays.asList(points);
+    }
+
+    /**
+     * 通过响应式的客户端获取经纬度，各个分区并发查询
+     *
+     * @param names 成员
+     * @return 与names一一对应，不存在时为null
+     */
+    public CompletableFuture<List<Point>> positionAsync(String... names) {
+        Point[] points = new Point[names.length];
+        return partitionsAsync(Arrays.asList(names))
+                .flatMapMany(partitions -> Flux.fromIterable(groups(names, partitions).entrySet()))
+                .flatMap(group -> {
+                    String partition = group.getKey();
+                    String[] members = group.getValue().stream().map(i -> names[i]).toArray(String[]::new);
+                    return reactive(partition).opsForGeo().position(partition, members)
+                            .doOnNext(found -> fill(points, group.getValue(), found));
+                })
+                .then(Mono.fromSupplier(() -> Arrays.asList(points)))
+                .toFuture();
+    }
+
+    /**
+     * 按分区对成员分组
+     *
+     * @return key:分区；value:成员在names中的下标
+     */
+    private static Map<String, List<Integer>> groups(String[] names, List<String> partitions) {
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (partitions.get(i) != null) {
+                groups.computeIfAbsent(partitions.get(i), item -> new ArrayList<>()).add(i);
+            }
+        }
+        return groups;
+    }
+
+    private static void fill(Point[] points, List<Integer> indexes, List<Point> found) {
+        for (int i = 0; found != null && i < indexes.size(); i++) {
+            points[indexes.get(i)] = found.get(i);
+        }
+    }
+
+    /**
+     * 半径查询，并发查询覆盖的分区后多路归并
+     *
+     * @param center 中心点
+     * @param km     半径（千米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @return 按距离升序的结果
+     */
+    public List<GeoResult<RedisGeoCommands.GeoLocation<String>>> radius(Point center, double km, long limit) {
+        return radiusAsync(center, km, limit).join();
+    }
+
+    /**
+     * 异步的半径查询，通过响应式的客户端并发查询各个分区，不占用调用线程和其他线程
+     *
+     * @param center 中心点
+     * @param km     半径（千米）
+     * @param limit  最多返回的数量，小于等于0时不限制
+     * @return 按距离升序的结果
+     */
+    public CompletableFuture<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> radiusAsync(Point center,
+                                                                                                double km,
+                                                                                                long limit) {
+        Circle circle = new Circle(center, new Distance(km, Metrics.KILOMETERS));
+        RedisGeoCommands.GeoRadiusCommandArgs args = RedisGeoCommands.GeoRadiusCommandArgs.newGeoRadiusArgs()
+                .sortAscending()
+                .includeCoordinates()
+                .includeDistance();
+        if (limit > 0) {
+            args.limit(limit);
+        }
+        return coveringPartitions(center, km * 1000)
+                .flatMap(partition -> reactive(partition).opsForGeo().radius(partition, circle, args).collectList(),
+                        properties.getParallelism())
+                .filter(list -> !list.isEmpty())
+                .collectList()
+                .map(lists -> merge(lists, limit))
+                .toFuture();
+    }
+
+    /**
+     * 查询范围覆盖的分区，超过maxPartitionsPerQuery时改为从写入过的分区中筛选与查询范围相交的
+     *
+     * @param center 中心点
+     * @param meters 半径（米）
+     * @return 分区
+     */
+    private Flux<String> coveringPartitions(Point center, double meters) {
+        List<String> cells = GeoHash.coveringCells(center.getX(), center.getY(), meters,
+                properties.getPrecision(), properties.getMaxPartitionsPerQuery());
+        if (cells != null) {
+            return Flux.fromIterable(cells).map(cell -> key + ":" + cell);
+        }
+        return reactive(registryKey).opsForSet().members(registryKey)
+                .filter(partition -> GeoHash.covers(partition.substring(key.length() + 1),
+                        center.getX(), center.getY(), meters));
+    }
+
+    /**
+     * 多路归并，堆中只保存每个列表的当前位置
+     *
+     * @param lists 按距离升序的列表
+     * @param limit 最多返回的数量，小于等于0时不限制
+     * @return 按距离升序的结果
+     */
+    static List<GeoResult<RedisGeoCommands.GeoLocation<String>>> merge(
+            List<List<GeoResult<RedisGeoCommands.GeoLocation<String>>>> lists, long limit) {
+        if (lists.size() == 1 && (limit <= 0 || lists.get(0).size() <= limit)) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (List<GeoResult<RedisGeoCommands.GeoLocation<String>>> list : lists) {
+            total += list.size();
+        }
+        int size = limit > 0 ? (int) Math.min(limit, total) : total;
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, lists.size()), (a, b) -> Double.compare(
+                lists.get(a[0]).get(a[1]).getDistance().getValue(),
+                lists.get(b[0]).get(b[1]).getDistance().getValue()));
+        for (int i = 0; i < lists.size(); i++) {
+            heap.add(new int[]{i, 0});
+        }
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> merged = new ArrayList<>(size);
+        while (merged.size() < size) {
+            int[] head = heap.poll();
+            List<GeoResult<RedisGeoCommands.GeoLocation<String>>> list = lists.get(head[0]);
+            merged.add(list.get(head[1]));
+            if (++head[1] < list.size()) {
+                heap.add(head);
+            }
+        }
+        return merged;
+    }
+
+    private List<String> partitions(List<String> names) {
+        List<Object> values = template(indexKey).opsForHash().multiGet(indexKey, new ArrayList<>(names));
+        List<String> partitions = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            partitions.add(values == null ? null : (String) values.get(i));
+        }
+        return partitions;
+    }
+
+    private Mono<List<String>> partitionsAsync(List<String> names) {
+        return reactive(indexKey).<String, String>opsForHash().multiGet(indexKey, names);
+    }
+
+    private String partitionKey(Point point) {
+        return key + ":" + GeoHash.encode(point.getX(), point.getY(), properties.getPrecision());
+    }
+
+    private StringRedisTemplate template(String redisKey) {
+        return templateResolver.apply(redisKey);
+    }
+
+    private ReactiveStringRedisTemplate reactive(String redisKey) {
+        return reactiveTemplateResolver.apply(redisKey);
+    }
+
+    /**
+     * 一个成员的修改
+     */
+    @Value
+    private static class Change {
+
+        String name;
+
+        /**
+         * 读取到的原分区，不存在时为null
+         */
+        String oldPartition;
+
+        /**
+         * 新分区，删除时为null
+         */
+        String partition;
+
+        Point point;
+    }
+}
@@ -0,0 +1,195 @@
+package com.ting.utils.hash;
+
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 有界负载一致性hash（Consistent Hashing with Bounded Loads）
+ * <p>
+ * 每个节点的容量为 ceil((1 + ε) * 当前处理中的请求数 * 节点权重 / 总权重)，key路由到的节点已满时，
+ * 沿hash环顺时针找到下一个未满的节点，每个物理节点只检查一次，避免热点区间的请求全部压到同一个节点上；
+ * 负载计数使用{@link LongAdder}，高并发下不会因为计数本身产生竞争。
+ * 节点从hash环删除后，其负载计数在没有处理中的请求时清除。
+ * <p>
+ * 容量判断与计数不是原子操作，并发时节点负载可能短暂地略微超过容量
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class BoundedLoadHash {
+
+    private final ConformityHash conformityHash;
+
+    /**
+     * 允许超过平均负载的比例
+     */
+    private final double epsilon;
+
+    /**
+     * 每个节点处理中的请求数
+     */
+    private final Map<String, LongAdder> loads = new ConcurrentHashMap<>();
+
+    /**
+     * 所有节点处理中的请求数
+     */
+    private final LongAdder total = new LongAdder();
+
+    /**
+     * 上次清理负载计数时的hash环
+     */
+    private volatile HashRing pruned = HashRing.EMPTY;
+
+    /**
+     * @param conformityHash hash环，节点的新增和删除直接在hash环上操作
+     * @param epsilon        允许超过平均负载的比例，如0.25表示每个节点最多承担平均负载的1.25倍
+     */
+    public BoundedLoadHash(ConformityHash conformityHash, double epsilon) {
+        Assert.notNull(conformityHash, "hash环不能为空");
+        Assert.isTrue(epsilon > 0, "epsilon必须大于0");
+        this.conformityHash = conformityHash;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * 获取key对应的服务器节点并占用一个负载，处理完成后必须调用{@link #release(String)}
+     *
+     * @param key key
+     * @return 服务器节点
+     */
+    public String acquire(CharSequence key) {
+        HashRing ring = conformityHash.snapshot();
+        Assert.state(!ring.isEmpty(), "hash环中没有服务器节点");
+        if (ring != pruned) {
+            prune(ring);
+        }
+        double unit = (1 + epsilon) * (total.sum() + 1) / totalWeight(ring);
+        int start = ring.indexOf(ConformityHash.getHash(key));
+        int node = ring.ownerIndexes[start];
+        // 已检查过的物理节点，只在第一个节点已满时创建
+        boolean[] seen = null;
+        int remaining = ring.servers.length;
+        for (int i = 0; remaining > 0 && i < ring.ownerIndexes.length; i++) {
+            int candidate = ring.ownerIndexes[(start + i) % ring.ownerIndexes.length];
+            if (seen != null && seen[candidate]) {
+                continue;
+            }
+            if (load(ring.servers[candidate]).sum() < capacity(unit, ring.weights[candidate])) {
+                node = candidate;
+                break;
+            }
+            if (seen == null) {
+                seen = new boolean[ring.servers.length];
+            }
+            seen[candidate] = true;
+            remaining--;
+        }
+        String server = ring.servers[node];
+        load(server).increment();
+        total.increment();
+        return server;
+    }
+
+    /**
+     * 释放{@link #acquire(CharSequence)}占用的负载
+     *
+     * @param node 服务器节点
+     */
+    public void release(String node) {
+        LongAdder load = loads.get(node);
+        Assert.notNull(load, "服务器节点没有负载");
+        load.decrement();
+        total.decrement();
+        if (indexOf(conformityHash.snapshot(), node) < 0 && load.sum() == 0) {
+            loads.remove(node, load);
+        }
+    }
+
+    /**
+     * 在key对应的服务器节点上执行操作，执行完成后自动释放负载
+     *
+     * @param key    key
+     * @param action 操作，参数为服务器节点
+     * @param <T>    返回值类型
+     * @return 操作的返回值
+     */
+    public <T> T execute(CharSequence key, Function<String, T> action) {
+        String node = acquire(key);
+        try {
+            return action.apply(node);
+        } finally {
+            release(node);
+        }
+    }
+
+    /**
+     * 节点当前的容量
+     *
+     * @param node 服务器节点
+     * @return 容量，节点不在hash环中时为0
+     */
+    public long getCapacity(String node) {
+        HashRing ring = conformityHash.snapshot();
+        int index = indexOf(ring, node);
+        if (index < 0) {
+            return 0;
+        }
+        return capacity((1 + epsilon) * (total.sum() + 1) / totalWeight(ring), ring.weights[index]);
+    }
+
+    /**
+     * 节点处理中的请求数
+     *
+     * @param node 服务器节点
+     * @return 请求数
+     */
+    public long getLoad(String node) {
+        LongAdder load = loads.get(node);
+        return load == null ? 0 : load.sum();
+    }
+
+    private static long capacity(double unit, int weight) {
+        return (long) Math.ceil(unit * weight);
+    }
+
+    private static long totalWeight(HashRing ring) {
+        long totalWeight = 0;
+        for (int weight : ring.weights) {
+            totalWeight += weight;
+        }
+        return totalWeight;
+    }
+
+    private static int indexOf(HashRing ring, String node) {
+        for (int i = 0; i < ring.servers.length; i++) {
+            if (ring.servers[i].equals(node)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 清除已从hash环删除且没有处理中请求的节点的负载计数，仍有请求的节点在最后一个请求释放时清除
+     *
+     * @param ring 当前的hash环
+     */
+    private void prune(HashRing ring) {
+        pruned = ring;
+        loads.forEach((node, load) -> {
+            if (indexOf(ring, node) < 0 && load.sum() == 0) {
+                loads.remove(node, load);
+            }
+        });
+    }
+
+    private LongAdder load(String node) {
+        LongAdder load = loads.get(node);
+        return load != null ? load : loads.computeIfAbsent(node, key -> new LongAdder());
+    }
+}
@@ -1,82 +1,389 @@
 package com.ting.utils.hash;
 
+import org.springframework.util.Assert;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.TreeMap;
+import java.util.Map;
 
 /**
  * 一致性hash
+ * <p>
+ * hash环保存在不可变的{@link HashRing}快照中，查询时直接对有序的int数组二分查找，无锁且不产生对象；
+ * 新增或删除节点时加锁重新构建快照并整体替换，不影响正在进行的查询
  *
  * @author lishuang
  * @version 1.0
  * @date 2021/11/22
  */
-public class ConformityHash {
-
+public class ConformityHash implements RoutingStrategy {
 
     /**
-     * 服务器节点
+     * 虚拟节点分隔符
      */
-    private static final List<String> serverList = new ArrayList<String>() {{
-        add("192.168.1.1:8008");
-        add("192.168.1.2:8009");
-        add("192.168.101.1:8008");
-        add("192.168.95.1:8008");
+    static final String VIRTUAL_NODE_SEPARATOR = "&";
 
-    }};
+    /**
+     * 默认虚拟节点数量
+     */
+    public static final int DEFAULT_VIRTUAL_NODES_NUMBER = 10;
 
-    private static final List<String> nodeList = new ArrayList<>();
+    /**
+     * 服务器节点及其权重
+     */
+    private final Map<String, Integer> serverList = new LinkedHashMap<>();
 
     /**
-     * 虚拟节点数量
+     * 权重为1时的虚拟节点数量
      */
-    private static final int VIRTUAL_NODES_NUMBER = 10;
+    private int virtualNodesNumber;
 
     /**
      * hash环
      */
-    private static final TreeMap<Integer, String> hashMap = new TreeMap<>();
-
-    static {
-        for (String server : serverList) {
-            nodeList.add(server);
-            hashMap.put(getHash(server), server);
-            for (int i = 0; i < VIRTUAL_NODES_NUMBER; i++) {
-                String virtual = server + "&" + i;
-                nodeList.add(virtual);
-                // 添加到hash环中
-                hashMap.put(getHash(virtual), virtual);
+    private volatile HashRing ring = HashRing.EMPTY;
+
+    public ConformityHash() {
+        this(Collections.emptyList());
+    }
+
+    public ConformityHash(Collection<String> servers) {
+        this(servers, DEFAULT_VIRTUAL_NODES_NUMBER);
+    }
+
+    public ConformityHash(Collection<String> servers, int virtualNodesNumber) {
+        Assert.notNull(servers, "服务器节点不能为空");
+        Assert.isTrue(virtualNodesNumber >= 0, "虚拟节点数量不能小于0");
+        this.virtualNodesNumber = virtualNodesNumber;
+        for (String server : servers) {
+            this.serverList.put(server, 1);
+        }
+        this.ring = HashRing.build(serverList, virtualNodesNumber);
+    }
+
+    /**
+     * @param servers            服务器节点及其权重
+     * @param virtualNodesNumber 权重为1时的虚拟节点数量
+     */
+    public ConformityHash(Map<String, Integer> servers, int virtualNodesNumber) {
+        Assert.notNull(servers, "服务器节点不能为空");
+        Assert.isTrue(virtualNodesNumber >= 0, "虚拟节点数量不能小于0");
+        servers.forEach((server, weight) -> Assert.isTrue(weight != null && weight > 0, "权重必须大于0"));
+        this.virtualNodesNumber = virtualNodesNumber;
+        this.serverList.putAll(servers);
+        this.ring = HashRing.build(serverList, virtualNodesNumber);
+    }
+
+    /**
+     * 新增服务器节点
+     *
+     * @param server 服务器节点
+     * @return 节点已存在时返回false
+     */
+    @Override
+    public boolean addNode(String server) {
+        return addNode(server, 1);
+    }
+
+    /**
+     * 新增带权重的服务器节点，虚拟节点数量为 weight * virtualNodesNumber
+     *
+     * @param server 服务器节点
+     * @param weight 权重
+     * @return 节点已存在时返回false
+     */
+    public synchronized boolean addNode(String server, int weight) {
+        Assert.hasText(server, "服务器节点不能为空");
+        Assert.isTrue(weight > 0, "权重必须大于0");
+        if (serverList.putIfAbsent(server, weight) != null) {
+            return false;
+        }
+        ring = HashRing.build(serverList, virtualNodesNumber);
+        return true;
+    }
+
+    /**
+     * 修改服务器节点的权重
+     *
+     * @param server 服务器节点
+     * @param weight 权重
+     * @return 节点不存在时返回false
+     */
+    public synchronized boolean setWeight(String server, int weight) {
+        Assert.isTrue(weight > 0, "权重必须大于0");
+        Integer old = serverList.get(server);
+        if (old == null) {
+            return false;
+        }
+        if (old != weight) {
+            serverList.put(server, weight);
+            ring = HashRing.build(serverList, virtualNodesNumber);
+        }
+        return true;
+    }
+
+    /**
+     * 获取服务器节点的权重
+     *
+     * @param server 服务器节点
+     * @return 节点不存在时返回0
+     */
+    public int getWeight(String server) {
+        HashRing current = ring;
+        for (int i = 0; i < current.servers.length; i++) {
+            if (current.servers[i].equals(server)) {
+                return current.weights[i];
             }
         }
+        return 0;
+    }
+
+    /**
+     * 修改权重为1时的虚拟节点数量，可以根据{@link #balance(int)}的结果进行调整
+     *
+     * @param virtualNodesNumber 虚拟节点数量
+     */
+    public synchronized void setVirtualNodesNumber(int virtualNodesNumber) {
+        Assert.isTrue(virtualNodesNumber >= 0, "虚拟节点数量不能小于0");
+        if (this.virtualNodesNumber != virtualNodesNumber) {
+            this.virtualNodesNumber = virtualNodesNumber;
+            ring = HashRing.build(serverList, virtualNodesNumber);
+        }
+    }
+
+    public synchronized int getVirtualNodesNumber() {
+        return virtualNodesNumber;
+    }
+
+    /**
+     * 删除服务器节点
+     *
+     * @param server 服务器节点
+     * @return 节点不存在时返回false
+     */
+    @Override
+    public synchronized boolean removeNode(String server) {
+        if (serverList.remove(server) == null) {
+            return false;
+        }
+        ring = HashRing.build(serverList, virtualNodesNumber);
+        return true;
+    }
+
+    /**
+     * 当前的服务器节点
+     *
+     * @return 服务器节点
+     */
+    @Override
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(ring.servers));
+    }
+
+    /**
+     * 当前的hash环快照
+     *
+     * @return hash环
+     */
+    HashRing snapshot() {
+        return ring;
     }
+
     /**
      * 获取ip地址
      *
      * @param userId
      * @return
      */
-    private static String getAddr(String userId) {
+    @Override
+    public String getAddr(String userId) {
+        HashRing current = ring;
+        Assert.state(!current.isEmpty(), "hash环中没有服务器节点");
+        return current.locate(getHash(userId));
+    }
+
+    /**
+     * 获取ip地址
+     *
+     * @param key UTF-8等编码后的key
+     * @return 服务器节点
+     * @see #getHash(byte[])
+     */
+    public String getAddr(byte[] key) {
+        HashRing current = ring;
+        Assert.state(!current.isEmpty(), "hash环中没有服务器节点");
+        return current.locate(getHash(key));
+    }
 
-        int hash = getHash(userId);
-        Integer integer = hashMap.tailMap(hash).firstKey();
-        System.out.println(integer);
-        String host = hashMap.get(integer);
-        if (host.contains("&")) {
-            host = host.substring(0, host.indexOf("&"));
+    /**
+     * 批量路由，按服务器节点分组
+     * <p>
+     * 整批key使用同一个hash环快照，直接对CharSequence计算hash，不截取字符串也不装箱
+     *
+     * @param keys key
+     * @param <K>  key的类型
+     * @return key:服务器节点；value:路由到该节点的key，保持原有顺序
+     */
+    @Override
+    public <K extends CharSequence> Map<String, List<K>> groupByNode(Collection<K> keys) {
+        Assert.notNull(keys, "数据不能为空");
+        HashRing current = ring;
+        Assert.state(!current.isEmpty(), "hash环中没有服务器节点");
+        int[] indexes = new int[keys.size()];
+        int[] counts = new int[current.servers.length];
+        int i = 0;
+        for (K key : keys) {
+            int index = current.locateIndex(getHash(key));
+            indexes[i++] = index;
+            counts[index]++;
+        }
+        List<List<K>> groups = newGroups(counts);
+        i = 0;
+        for (K key : keys) {
+            groups.get(indexes[i++]).add(key);
         }
-        return host;
+        return toMap(current, groups);
+    }
+
+    /**
+     * 批量路由，按服务器节点分组
+     *
+     * @param keys key
+     * @param <K>  key的类型
+     * @return key:服务器节点；value:路由到该节点的key，保持原有顺序
+     */
+    public <K extends CharSequence> Map<String, List<K>> groupByNode(K[] keys) {
+        return groupByNode(Arrays.asList(keys));
+    }
+
+    /**
+     * 批量路由二进制key，按服务器节点分组
+     *
+     * @param keys UTF-8等编码后的key
+     * @return key:服务器节点；value:路由到该节点的key，保持原有顺序
+     * @see #getHash(byte[])
+     */
+    public Map<String, List<byte[]>> groupByNode(byte[][] keys) {
+        Assert.notNull(keys, "数据不能为空");
+        HashRing current = ring;
+        Assert.state(!current.isEmpty(), "hash环中没有服务器节点");
+        int[] indexes = new int[keys.length];
+        int[] counts = new int[current.servers.length];
+        for (int i = 0; i < keys.length; i++) {
+            int index = current.locateIndex(getHash(keys[i]));
+            indexes[i] = index;
+            counts[index]++;
+        }
+        List<List<byte[]>> groups = newGroups(counts);
+        for (int i = 0; i < keys.length; i++) {
+            groups.get(indexes[i]).add(keys[i]);
+        }
+        return toMap(current, groups);
+    }
+
+    private static <K> List<List<K>> newGroups(int[] counts) {
+        List<List<K>> groups = new ArrayList<>(counts.length);
+        for (int count : counts) {
+            groups.add(count == 0 ? Collections.emptyList() : new ArrayList<>(count));
+        }
+        return groups;
+    }
+
+    private static <K> Map<String, List<K>> toMap(HashRing ring, List<List<K>> groups) {
+        Map<String, List<K>> map = new LinkedHashMap<>(groups.size() * 2);
+        for (int i = 0; i < groups.size(); i++) {
+            if (!groups.get(i).isEmpty()) {
+                map.put(ring.servers[i], groups.get(i));
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 使用生成的样本key统计负载分布
+     *
+     * @param sampleSize 样本数量
+     * @return {@link RingBalance} 负载报告
+     */
+    public RingBalance balance(int sampleSize) {
+        Assert.isTrue(sampleSize > 0, "样本数量必须大于0");
+        List<String> keys = new ArrayList<>(sampleSize);
+        for (int i = 0; i < sampleSize; i++) {
+            keys.add("sample:" + i);
+        }
+        return balance(keys);
+    }
+
+    /**
+     * 对真实的key进行采样，统计每个物理节点的负载比例及标准差
+     *
+     * @param keys 样本key
+     * @return {@link RingBalance} 负载报告
+     */
+    public RingBalance balance(Iterable<String> keys) {
+        HashRing current = ring;
+        Assert.state(!current.isEmpty(), "hash环中没有服务器节点");
+        long[] counts = new long[current.servers.length];
+        long samples = 0;
+        for (String key : keys) {
+            counts[current.locateIndex(getHash(key))]++;
+            samples++;
+        }
+
+        long totalWeight = 0;
+        for (int weight : current.weights) {
+            totalWeight += weight;
+        }
+        long[] coverage = current.coverage();
+        double ringSize = (double) Integer.MAX_VALUE + 1;
+        List<RingBalance.NodeLoad> loads = new ArrayList<>(current.servers.length);
+        for (int i = 0; i < current.servers.length; i++) {
+            loads.add(new RingBalance.NodeLoad(
+                    current.servers[i],
+                    current.weights[i],
+                    counts[i],
+                    samples == 0 ? 0 : (double) counts[i] / samples,
+                    (double) current.weights[i] / totalWeight,
+                    coverage[i] / ringSize
+            ));
+        }
+        return new RingBalance(samples, loads);
     }
 
     /**
      * 使用FNV1_32_HASH算法计算服务器的Hash值,这里不使用重写hashCode的方法，最终效果没区别
      */
-    private static int getHash(String str) {
+    public static int getHash(CharSequence str) {
         final int p = 16777619;
         int hash = (int) 2166136261L;
         for (int i = 0; i < str.length(); i++) {
             hash = (hash ^ str.charAt(i)) * p;
         }
+        return avalanche(hash);
+    }
 
+    /**
+     * 使用FNV1_32_HASH算法计算二进制key的Hash值
+     * <p>
+     * 每个字节按无符号数参与计算，key只包含ASCII字符时与{@link #getHash(CharSequence)}的结果相同
+     *
+     * @param bytes 二进制key
+     * @return hash值
+     */
+    public static int getHash(byte[] bytes) {
+        final int p = 16777619;
+        int hash = (int) 2166136261L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xff)) * p;
+        }
+        return avalanche(hash);
+    }
+
+    private static int avalanche(int hash) {
         hash += hash << 13;
         hash ^= hash >> 7;
         hash += hash << 3;
@@ -91,6 +398,27 @@ public class ConformityHash {
     }
 
     public static void main(String[] args) {
-        System.out.println(getAddr("1235465"));
+        List<String> serverList = new ArrayList<String>() {{
+            add("192.168.1.1:8008");
+            add("192.168.1.2:8009");
+            add("192.168.101.1:8008");
+            add("192.168.95.1:8008");
+        }};
+        ConformityHash conformityHash = new ConformityHash(serverList);
+        System.out.println(conformityHash.getAddr("1235465"));
+
+        System.out.println(conformityHash.groupByNode(Arrays.asList("1235465", "1235466", "1235467", "1235468")));
+
+        conformityHash.addNode("192.168.102.1:8008", 2);
+        System.out.println(conformityHash.getAddr("1235465"));
+
+        // 根据负载报告调整虚拟节点数量
+        for (int virtualNodesNumber : new int[]{10, 100, 200}) {
+            conformityHash.setVirtualNodesNumber(virtualNodesNumber);
+            RingBalance balance = conformityHash.balance(100000);
+            System.out.println("virtualNodesNumber = " + virtualNodesNumber
+                    + ", standardDeviation = " + balance.getStandardDeviation()
+                    + ", maxLoadFactor = " + balance.getMaxLoadFactor());
+        }
     }
 }
@@ -0,0 +1,180 @@
+package com.ting.utils.hash;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * hash环快照
+ * <p>
+ * 不可变对象，创建后只读，所有查询都不需要加锁；节点变更时重新构建一个新的快照进行替换
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+final class HashRing {
+
+    static final HashRing EMPTY = new HashRing(new int[0], new String[0], new int[0], new String[0], new int[0]);
+
+    /**
+     * 有序的hash值（包含虚拟节点）
+     */
+    final int[] hashes;
+
+    /**
+     * 与hashes下标一一对应的物理节点
+     */
+    final String[] owners;
+
+    /**
+     * 与hashes下标一一对应的物理节点在servers中的下标
+     */
+    final int[] ownerIndexes;
+
+    /**
+     * 物理节点
+     */
+    final String[] servers;
+
+    /**
+     * 与servers下标一一对应的权重
+     */
+    final int[] weights;
+
+    private HashRing(int[] hashes, String[] owners, int[] ownerIndexes, String[] servers, int[] weights) {
+        this.hashes = hashes;
+        this.owners = owners;
+        this.ownerIndexes = ownerIndexes;
+        this.servers = servers;
+        this.weights = weights;
+    }
+
+    /**
+     * 构建hash环
+     * <p>
+     * 每个物理节点的虚拟节点数量为 权重 * virtualNodesNumber；
+     * hash冲突时与原先TreeMap#put的行为一致，后加入的节点覆盖先加入的节点
+     *
+     * @param servers            物理节点及其权重
+     * @param virtualNodesNumber 权重为1时的虚拟节点数量
+     * @return hash环
+     */
+    static HashRing build(Map<String, Integer> servers, int virtualNodesNumber) {
+        if (servers.isEmpty()) {
+            return EMPTY;
+        }
+        String[] serverArray = new String[servers.size()];
+        int[] weights = new int[servers.size()];
+        int total = 0;
+        int s = 0;
+        for (Map.Entry<String, Integer> entry : servers.entrySet()) {
+            serverArray[s] = entry.getKey();
+            weights[s] = entry.getValue();
+            total += 1 + weights[s] * virtualNodesNumber;
+            s++;
+        }
+        // 高32位为hash值，低32位为插入顺序，排序后即可按hash值有序且保留插入顺序
+        long[] packed = new long[total];
+        int[] serverIndex = new int[total];
+        int n = 0;
+        for (s = 0; s < serverArray.length; s++) {
+            String server = serverArray[s];
+            serverIndex[n] = s;
+            packed[n] = pack(ConformityHash.getHash(server), n);
+            n++;
+            int virtualNodes = weights[s] * virtualNodesNumber;
+            for (int i = 0; i < virtualNodes; i++) {
+                serverIndex[n] = s;
+                packed[n] = pack(ConformityHash.getHash(server + ConformityHash.VIRTUAL_NODE_SEPARATOR + i), n);
+                n++;
+            }
+        }
+        Arrays.sort(packed);
+
+        int[] hashes = new int[n];
+        int[] ownerIndexes = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            int hash = (int) (packed[i] >> 32);
+            int owner = serverIndex[(int) packed[i]];
+            if (size > 0 && hashes[size - 1] == hash) {
+                ownerIndexes[size - 1] = owner;
+            } else {
+                hashes[size] = hash;
+                ownerIndexes[size] = owner;
+                size++;
+            }
+        }
+        if (size < n) {
+            hashes = Arrays.copyOf(hashes, size);
+            ownerIndexes = Arrays.copyOf(ownerIndexes, size);
+        }
+        String[] owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            owners[i] = serverArray[ownerIndexes[i]];
+        }
+        return new HashRing(hashes, owners, ownerIndexes, serverArray, weights);
+    }
+
+    private static long pack(int hash, int order) {
+        return ((long) hash << 32) | order;
+    }
+
+    /**
+     * 顺时针查找第一个大于等于hash的位置，超过最大值时回到环的起点
+     *
+     * @param hash hash值
+     * @return 位置下标
+     */
+    int indexOf(int hash) {
+        int index = Arrays.binarySearch(hashes, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index == hashes.length ? 0 : index;
+    }
+
+    /**
+     * 根据hash值获取物理节点
+     *
+     * @param hash hash值
+     * @return 物理节点
+     */
+    String locate(int hash) {
+        return owners[indexOf(hash)];
+    }
+
+    /**
+     * 根据hash值获取物理节点在servers中的下标
+     *
+     * @param hash hash值
+     * @return 物理节点下标
+     */
+    int locateIndex(int hash) {
+        return ownerIndexes[indexOf(hash)];
+    }
+
+    /**
+     * 计算每个物理节点在hash环上覆盖的区间长度
+     * <p>
+     * 位置i负责(hashes[i-1], hashes[i]]，位置0负责环尾到环首的区间
+     *
+     * @return 与servers下标一一对应的区间长度，总和为2^31
+     */
+    long[] coverage() {
+        long[] coverage = new long[servers.length];
+        if (hashes.length == 0) {
+            return coverage;
+        }
+        int last = hashes.length - 1;
+        coverage[ownerIndexes[0]] += (long) hashes[0] + ((long) Integer.MAX_VALUE - hashes[last]) + 1;
+        for (int i = 1; i <= last; i++) {
+            coverage[ownerIndexes[i]] += (long) hashes[i] - hashes[i - 1];
+        }
+        return coverage;
+    }
+
+    boolean isEmpty() {
+        return hashes.length == 0;
+    }
+}
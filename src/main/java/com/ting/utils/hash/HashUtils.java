@@ -0,0 +1,42 @@
+package com.ting.utils.hash;
+
+/**
+ * 64位hash工具
+ * <p>
+ * hash环使用的{@link ConformityHash#getHash(CharSequence)}只有31位，跳跃一致性hash等策略需要64位的均匀hash值
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+final class HashUtils {
+
+    private HashUtils() {
+    }
+
+    /**
+     * FNV1A_64_HASH，结果再经过{@link #mix64(long)}打散
+     *
+     * @param str 字符串
+     * @return 64位hash值
+     */
+    static long hash64(String str) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < str.length(); i++) {
+            hash = (hash ^ str.charAt(i)) * 0x100000001b3L;
+        }
+        return mix64(hash);
+    }
+
+    /**
+     * splitmix64的混淆函数，使每一位都能影响结果的所有位
+     *
+     * @param z 原始值
+     * @return 混淆后的值
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
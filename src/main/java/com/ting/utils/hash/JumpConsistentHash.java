@@ -0,0 +1,85 @@
+package com.ting.utils.hash;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 跳跃一致性hash（Jump Consistent Hash）
+ * <p>
+ * 不需要保存hash环，查询为O(ln n)的纯计算，内存只有节点列表；分布非常均匀，
+ * 但节点只能按顺序编号：在末尾新增或删除节点时迁移量最小，删除中间的节点会导致其后的节点全部重新编号
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class JumpConsistentHash implements RoutingStrategy {
+
+    private volatile String[] servers;
+
+    public JumpConsistentHash(Collection<String> servers) {
+        Assert.notNull(servers, "服务器节点不能为空");
+        this.servers = servers.stream().distinct().toArray(String[]::new);
+    }
+
+    @Override
+    public String getAddr(String key) {
+        String[] current = servers;
+        Assert.state(current.length > 0, "没有服务器节点");
+        return current[jump(HashUtils.hash64(key), current.length)];
+    }
+
+    /**
+     * 跳跃一致性hash算法
+     *
+     * @param key     64位的key
+     * @param buckets 桶的数量
+     * @return 桶的下标
+     */
+    static int jump(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    @Override
+    public synchronized boolean addNode(String server) {
+        Assert.hasText(server, "服务器节点不能为空");
+        String[] current = servers;
+        if (Arrays.asList(current).contains(server)) {
+            return false;
+        }
+        String[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = server;
+        servers = next;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeNode(String server) {
+        String[] current = servers;
+        int index = Arrays.asList(current).indexOf(server);
+        if (index < 0) {
+            return false;
+        }
+        String[] next = new String[current.length - 1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index + 1, next, index, next.length - index);
+        servers = next;
+        return true;
+    }
+
+    @Override
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(servers));
+    }
+}
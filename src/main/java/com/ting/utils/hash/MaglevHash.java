@@ -0,0 +1,135 @@
+package com.ting.utils.hash;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maglev一致性hash
+ * <p>
+ * 预先生成一张大小为质数的查找表，查询只需要一次取模和一次数组访问；分布接近完全均匀，
+ * 代价是每个查找表占用 tableSize 个int，并且节点变更时会有少量不属于该节点的key发生迁移
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class MaglevHash implements RoutingStrategy {
+
+    /**
+     * 默认查找表大小，需要是质数并且远大于节点数量
+     */
+    public static final int DEFAULT_TABLE_SIZE = 65537;
+
+    private final int tableSize;
+
+    private volatile Table table;
+
+    public MaglevHash(Collection<String> servers) {
+        this(servers, DEFAULT_TABLE_SIZE);
+    }
+
+    public MaglevHash(Collection<String> servers, int tableSize) {
+        Assert.notNull(servers, "服务器节点不能为空");
+        Assert.isTrue(isPrime(tableSize), "查找表大小必须是质数");
+        this.tableSize = tableSize;
+        this.table = new Table(servers.stream().distinct().toArray(String[]::new), tableSize);
+    }
+
+    @Override
+    public String getAddr(String key) {
+        Table current = table;
+        Assert.state(current.servers.length > 0, "没有服务器节点");
+        int slot = (int) Long.remainderUnsigned(HashUtils.hash64(key), tableSize);
+        return current.servers[current.lookup[slot]];
+    }
+
+    @Override
+    public synchronized boolean addNode(String server) {
+        Assert.hasText(server, "服务器节点不能为空");
+        String[] current = table.servers;
+        if (Arrays.asList(current).contains(server)) {
+            return false;
+        }
+        String[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = server;
+        table = new Table(next, tableSize);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeNode(String server) {
+        String[] current = table.servers;
+        if (!Arrays.asList(current).contains(server)) {
+            return false;
+        }
+        table = new Table(Arrays.stream(current).filter(item -> !item.equals(server)).toArray(String[]::new), tableSize);
+        return true;
+    }
+
+    @Override
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(table.servers));
+    }
+
+    private static boolean isPrime(int n) {
+        if (n < 2) {
+            return false;
+        }
+        for (int i = 2; (long) i * i <= n; i++) {
+            if (n % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 查找表快照
+     */
+    private static final class Table {
+
+        private final String[] servers;
+
+        /**
+         * 槽位对应的节点下标
+         */
+        private final int[] lookup;
+
+        private Table(String[] servers, int size) {
+            this.servers = servers;
+            this.lookup = new int[size];
+            if (servers.length == 0) {
+                return;
+            }
+            int n = servers.length;
+            long[] offset = new long[n];
+            long[] skip = new long[n];
+            long[] next = new long[n];
+            for (int i = 0; i < n; i++) {
+                long hash = HashUtils.hash64(servers[i]);
+                offset[i] = Long.remainderUnsigned(hash, size);
+                skip[i] = Long.remainderUnsigned(HashUtils.mix64(hash), size - 1) + 1;
+            }
+            Arrays.fill(lookup, -1);
+            int filled = 0;
+            while (true) {
+                for (int i = 0; i < n; i++) {
+                    int slot = (int) ((offset[i] + next[i] * skip[i]) % size);
+                    while (lookup[slot] >= 0) {
+                        next[i]++;
+                        slot = (int) ((offset[i] + next[i] * skip[i]) % size);
+                    }
+                    lookup[slot] = i;
+                    next[i]++;
+                    if (++filled == size) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
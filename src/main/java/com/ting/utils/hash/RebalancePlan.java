@@ -0,0 +1,237 @@
+package com.ting.utils.hash;
+
+import com.ting.utils.redis.RedisUtils;
+import lombok.Value;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 节点变更时的最小迁移计划
+ * <p>
+ * 对比新旧两个hash环，计算出归属发生变化的hash区间以及每个区间的源节点和目标节点，
+ * 迁移时只需要处理落在这些区间里的key，不需要整体清空缓存
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class RebalancePlan {
+
+    private final HashRing source;
+
+    private final HashRing target;
+
+    /**
+     * 发生迁移的hash区间，按hash值有序
+     */
+    private final List<MovedRange> movedRanges;
+
+    private RebalancePlan(HashRing source, HashRing target, List<MovedRange> movedRanges) {
+        this.source = source;
+        this.target = target;
+        this.movedRanges = Collections.unmodifiableList(movedRanges);
+    }
+
+    /**
+     * 对比两个hash环的当前快照
+     *
+     * @param source 变更前的hash环
+     * @param target 变更后的hash环
+     * @return 迁移计划
+     */
+    public static RebalancePlan diff(ConformityHash source, ConformityHash target) {
+        HashRing from = source.snapshot();
+        HashRing to = target.snapshot();
+        Assert.isTrue(!from.isEmpty() && !to.isEmpty(), "hash环中没有服务器节点");
+
+        // 两个环所有位置的并集，相邻两个位置之间的区间在两个环中的归属都是确定的
+        int[] bounds = union(from.hashes, to.hashes);
+        List<MovedRange> ranges = new ArrayList<>();
+        long start = Integer.MIN_VALUE;
+        for (int bound : bounds) {
+            addRange(ranges, (int) start, bound, from.locate(bound), to.locate(bound));
+            start = (long) bound + 1;
+        }
+        // 最后一个位置之后的区间回到环的起点
+        if (start <= Integer.MAX_VALUE) {
+            addRange(ranges, (int) start, Integer.MAX_VALUE, from.locate(bounds[0]), to.locate(bounds[0]));
+        }
+        return new RebalancePlan(from, to, ranges);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] union = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                next = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                next = b[j++];
+            } else {
+                next = a[i++];
+                j++;
+            }
+            union[n++] = next;
+        }
+        return n == union.length ? union : Arrays.copyOf(union, n);
+    }
+
+    private static void addRange(List<MovedRange> ranges, int start, int end, String from, String to) {
+        if (from.equals(to)) {
+            return;
+        }
+        if (!ranges.isEmpty()) {
+            MovedRange last = ranges.get(ranges.size() - 1);
+            if ((long) last.getEnd() + 1 == start && last.getSource().equals(from) && last.getTarget().equals(to)) {
+                ranges.set(ranges.size() - 1, new MovedRange(last.getStart(), end, from, to));
+                return;
+            }
+        }
+        ranges.add(new MovedRange(start, end, from, to));
+    }
+
+    /**
+     * 发生迁移的hash区间
+     *
+     * @return 按hash值有序的区间
+     */
+    public List<MovedRange> getMovedRanges() {
+        return movedRanges;
+    }
+
+    /**
+     * 按源节点分组的迁移区间
+     *
+     * @return key:源节点；value:迁出的区间
+     */
+    public Map<String, List<MovedRange>> getRangesBySource() {
+        Map<String, List<MovedRange>> map = new LinkedHashMap<>();
+        movedRanges.forEach(range -> map.computeIfAbsent(range.getSource(), key -> new ArrayList<>()).add(range));
+        return map;
+    }
+
+    /**
+     * 按目标节点分组的迁移区间
+     *
+     * @return key:目标节点；value:迁入的区间
+     */
+    public Map<String, List<MovedRange>> getRangesByTarget() {
+        Map<String, List<MovedRange>> map = new LinkedHashMap<>();
+        movedRanges.forEach(range -> map.computeIfAbsent(range.getTarget(), key -> new ArrayList<>()).add(range));
+        return map;
+    }
+
+    /**
+     * 发生迁移的区间占hash空间的比例，{@link ConformityHash#getHash(CharSequence)}的结果都是非负数，只统计[0, 2^31)
+     *
+     * @return 比例
+     */
+    public double getMovedShare() {
+        long moved = 0;
+        for (MovedRange range : movedRanges) {
+            if (range.getEnd() >= 0) {
+                moved += (long) range.getEnd() - Math.max(range.getStart(), 0) + 1;
+            }
+        }
+        return moved / ((double) Integer.MAX_VALUE + 1);
+    }
+
+    /**
+     * 获取key的迁移方向
+     *
+     * @param key key
+     * @return 不需要迁移时返回null
+     */
+    public Move getMove(CharSequence key) {
+        int hash = ConformityHash.getHash(key);
+        String from = source.locate(hash);
+        String to = target.locate(hash);
+        return from.equals(to) ? null : new Move(from, to);
+    }
+
+    /**
+     * 使用SCAN遍历redis中的key，只把需要迁移的key按迁移方向分批交给consumer处理
+     *
+     * @param redisUtils redis工具类
+     * @param pattern    匹配规则
+     * @param count      每次SCAN的COUNT
+     * @param batchSize  每批遍历的key数量，每次回调的key数量不会超过该值
+     * @param consumer   迁移方法，参数为迁移方向和需要迁移的key
+     * @return 需要迁移的key数量
+     */
+    public long migrate(RedisUtils redisUtils, String pattern, long count, int batchSize,
+                        BiConsumer<Move, List<String>> consumer) {
+        long[] moved = new long[1];
+        redisUtils.scan(pattern, count, batchSize, keys -> {
+            Map<Move, List<String>> groups = new LinkedHashMap<>();
+            for (String key : keys) {
+                Move move = getMove(key);
+                if (move != null) {
+                    groups.computeIfAbsent(move, item -> new ArrayList<>()).add(key);
+                }
+            }
+            groups.forEach((move, list) -> {
+                consumer.accept(move, list);
+                moved[0] += list.size();
+            });
+        });
+        return moved[0];
+    }
+
+    /**
+     * 迁移方向
+     */
+    @Value
+    public static class Move {
+
+        /**
+         * 源节点
+         */
+        String source;
+
+        /**
+         * 目标节点
+         */
+        String target;
+    }
+
+    /**
+     * 发生迁移的hash区间[start, end]
+     */
+    @Value
+    public static class MovedRange {
+
+        int start;
+
+        int end;
+
+        /**
+         * 源节点
+         */
+        String source;
+
+        /**
+         * 目标节点
+         */
+        String target;
+
+        /**
+         * 区间包含的hash值数量
+         *
+         * @return 数量
+         */
+        public long size() {
+            return (long) end - start + 1;
+        }
+    }
+}
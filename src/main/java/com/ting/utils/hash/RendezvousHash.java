@@ -0,0 +1,91 @@
+package com.ting.utils.hash;
+
+import org.springframework.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 最高随机权重hash（Rendezvous Hash / HRW）
+ * <p>
+ * 每个key对所有节点打分，选择分数最高的节点；节点变更时只有属于该节点的key会迁移，且不需要虚拟节点，
+ * 但每次查询都要遍历所有节点，查询耗时为O(n)，适合节点数量较少的场景
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class RendezvousHash implements RoutingStrategy {
+
+    private volatile Nodes nodes;
+
+    public RendezvousHash(Collection<String> servers) {
+        Assert.notNull(servers, "服务器节点不能为空");
+        this.nodes = new Nodes(servers.stream().distinct().toArray(String[]::new));
+    }
+
+    @Override
+    public String getAddr(String key) {
+        Nodes current = nodes;
+        Assert.state(current.servers.length > 0, "没有服务器节点");
+        long keyHash = HashUtils.hash64(key);
+        int best = 0;
+        long bestScore = Long.MIN_VALUE;
+        for (int i = 0; i < current.hashes.length; i++) {
+            long score = HashUtils.mix64(keyHash ^ current.hashes[i]);
+            if (score > bestScore) {
+                bestScore = score;
+                best = i;
+            }
+        }
+        return current.servers[best];
+    }
+
+    @Override
+    public synchronized boolean addNode(String server) {
+        Assert.hasText(server, "服务器节点不能为空");
+        String[] current = nodes.servers;
+        if (Arrays.asList(current).contains(server)) {
+            return false;
+        }
+        String[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = server;
+        nodes = new Nodes(next);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeNode(String server) {
+        String[] current = nodes.servers;
+        if (!Arrays.asList(current).contains(server)) {
+            return false;
+        }
+        nodes = new Nodes(Arrays.stream(current).filter(item -> !item.equals(server)).toArray(String[]::new));
+        return true;
+    }
+
+    @Override
+    public List<String> getNodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes.servers));
+    }
+
+    /**
+     * 节点快照，预先计算好节点的hash值
+     */
+    private static final class Nodes {
+
+        private final String[] servers;
+
+        private final long[] hashes;
+
+        private Nodes(String[] servers) {
+            this.servers = servers;
+            this.hashes = new long[servers.length];
+            for (int i = 0; i < servers.length; i++) {
+                hashes[i] = HashUtils.hash64(servers[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ting.utils.hash;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * hash环负载均衡报告
+ * <p>
+ * 对一批样本key进行路由，统计每个物理节点实际分到的比例，与按权重计算的期望比例进行比较，
+ * 可以根据标准差来调整虚拟节点的数量
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Getter
+@ToString
+public class RingBalance {
+
+    /**
+     * 样本数量
+     */
+    private final long samples;
+
+    /**
+     * 每个物理节点的负载
+     */
+    private final List<NodeLoad> nodes;
+
+    /**
+     * 负载系数（实际比例/期望比例）的标准差，越接近0越均衡
+     */
+    private final double standardDeviation;
+
+    /**
+     * 最大的负载系数
+     */
+    private final double maxLoadFactor;
+
+    RingBalance(long samples, List<NodeLoad> nodes) {
+        this.samples = samples;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        double sum = 0;
+        double max = 0;
+        for (NodeLoad node : nodes) {
+            sum += node.getLoadFactor();
+            max = Math.max(max, node.getLoadFactor());
+        }
+        double mean = nodes.isEmpty() ? 0 : sum / nodes.size();
+        double variance = 0;
+        for (NodeLoad node : nodes) {
+            double diff = node.getLoadFactor() - mean;
+            variance += diff * diff;
+        }
+        this.standardDeviation = nodes.isEmpty() ? 0 : Math.sqrt(variance / nodes.size());
+        this.maxLoadFactor = max;
+    }
+
+    /**
+     * 物理节点的负载
+     */
+    @Getter
+    @ToString
+    public static class NodeLoad {
+
+        /**
+         * 物理节点
+         */
+        private final String node;
+
+        /**
+         * 权重
+         */
+        private final int weight;
+
+        /**
+         * 分到的样本数量
+         */
+        private final long keys;
+
+        /**
+         * 实际比例
+         */
+        private final double share;
+
+        /**
+         * 按权重计算的期望比例
+         */
+        private final double expectedShare;
+
+        /**
+         * 在hash环上覆盖的区间比例
+         */
+        private final double ringShare;
+
+        /**
+         * 负载系数：实际比例/期望比例
+         */
+        private final double loadFactor;
+
+        NodeLoad(String node, int weight, long keys, double share, double expectedShare, double ringShare) {
+            this.node = node;
+            this.weight = weight;
+            this.keys = keys;
+            this.share = share;
+            this.expectedShare = expectedShare;
+            this.ringShare = ringShare;
+            this.loadFactor = expectedShare == 0 ? 0 : share / expectedShare;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ting.utils.hash;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 路由策略比较
+ * <p>
+ * 使用同一批节点和样本key，分别统计每种策略的查询吞吐量、负载标准差以及新增/删除一个节点时迁移的key比例，
+ * 理想的迁移比例为新增时 1/(n+1)，删除时 1/n。
+ * 删除分别统计最后一个节点和第一个节点：跳跃一致性hash只按编号路由，删除第一个节点时后面的节点都会重新编号，是它的最坏情况
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class RoutingComparison {
+
+    /**
+     * 比较各个路由策略
+     *
+     * @param servers    服务器节点
+     * @param sampleSize 样本数量
+     * @param strategies 策略名称及根据节点创建策略的方法
+     * @return 每种策略的比较结果
+     */
+    public static List<Result> compare(List<String> servers,
+                                       int sampleSize,
+                                       Map<String, Function<Collection<String>, RoutingStrategy>> strategies) {
+        Assert.notEmpty(servers, "服务器节点不能为空");
+        Assert.isTrue(sampleSize > 0, "样本数量必须大于0");
+        String[] keys = new String[sampleSize];
+        for (int i = 0; i < sampleSize; i++) {
+            keys[i] = "sample:" + i;
+        }
+
+        List<Result> results = new ArrayList<>(strategies.size());
+        strategies.forEach((name, factory) -> results.add(compare(name, factory, servers, keys)));
+        return results;
+    }
+
+    private static Result compare(String name, Function<Collection<String>, RoutingStrategy> factory,
+                                  List<String> servers, String[] keys) {
+        RoutingStrategy strategy = factory.apply(servers);
+        int nodes = strategy.getNodes().size();
+        String[] before = new String[keys.length];
+
+        // 预热后再统计耗时
+        route(strategy, keys, before);
+        long start = System.nanoTime();
+        route(strategy, keys, before);
+        double nanosPerLookup = (double) (System.nanoTime() - start) / keys.length;
+
+        Map<String, Integer> counts = new HashMap<>(nodes * 2);
+        for (String node : before) {
+            counts.merge(node, 1, Integer::sum);
+        }
+        double mean = (double) keys.length / nodes;
+        double variance = 0;
+        double max = 0;
+        for (String node : strategy.getNodes()) {
+            double loadFactor = counts.getOrDefault(node, 0) / mean;
+            variance += (loadFactor - 1) * (loadFactor - 1);
+            max = Math.max(max, loadFactor);
+        }
+
+        String[] after = new String[keys.length];
+        String extra = "routing-comparison-extra-node";
+        strategy.addNode(extra);
+        route(strategy, keys, after);
+        double movedOnAdd = (double) moved(before, after) / keys.length;
+        strategy.removeNode(extra);
+
+        strategy.removeNode(strategy.getNodes().get(nodes - 1));
+        route(strategy, keys, after);
+        double movedOnRemoveLast = (double) moved(before, after) / keys.length;
+
+        // 删除会改变部分策略的内部状态，重新创建后再删除第一个节点
+        RoutingStrategy fresh = factory.apply(servers);
+        fresh.removeNode(fresh.getNodes().get(0));
+        route(fresh, keys, after);
+        double movedOnRemoveFirst = (double) moved(before, after) / keys.length;
+
+        return new Result(name, nodes, nanosPerLookup, Math.sqrt(variance / nodes), max, movedOnAdd,
+                movedOnRemoveLast, movedOnRemoveFirst);
+    }
+
+    private static void route(RoutingStrategy strategy, String[] keys, String[] nodes) {
+        for (int i = 0; i < keys.length; i++) {
+            nodes[i] = strategy.getAddr(keys[i]);
+        }
+    }
+
+    private static int moved(String[] before, String[] after) {
+        int moved = 0;
+        for (int i = 0; i < before.length; i++) {
+            if (!before[i].equals(after[i])) {
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * 单个策略的比较结果
+     */
+    @Getter
+    @ToString
+    public static class Result {
+
+        /**
+         * 策略名称
+         */
+        private final String name;
+
+        /**
+         * 节点数量
+         */
+        private final int nodes;
+
+        /**
+         * 每次查询的耗时（纳秒）
+         */
+        private final double nanosPerLookup;
+
+        /**
+         * 负载系数的标准差
+         */
+        private final double standardDeviation;
+
+        /**
+         * 最大的负载系数
+         */
+        private final double maxLoadFactor;
+
+        /**
+         * 新增一个节点时迁移的key比例
+         */
+        private final double movedOnAdd;
+
+        /**
+         * 删除最后一个节点时迁移的key比例
+         */
+        private final double movedOnRemoveLast;
+
+        /**
+         * 删除第一个节点时迁移的key比例
+         */
+        private final double movedOnRemoveFirst;
+
+        Result(String name, int nodes, double nanosPerLookup, double standardDeviation,
+               double maxLoadFactor, double movedOnAdd, double movedOnRemoveLast, double movedOnRemoveFirst) {
+            this.name = name;
+            this.nodes = nodes;
+            this.nanosPerLookup = nanosPerLookup;
+            this.standardDeviation = standardDeviation;
+            this.maxLoadFactor = maxLoadFactor;
+            this.movedOnAdd = movedOnAdd;
+            this.movedOnRemoveLast = movedOnRemoveLast;
+            this.movedOnRemoveFirst = movedOnRemoveFirst;
+        }
+    }
+
+    public static void main(String[] args) {
+        Map<String, Function<Collection<String>, RoutingStrategy>> strategies = new LinkedHashMap<>();
+        strategies.put("ring(10)", ConformityHash::new);
+        strategies.put("ring(160)", servers -> new ConformityHash(servers, 160));
+        strategies.put("jump", JumpConsistentHash::new);
+        strategies.put("rendezvous", RendezvousHash::new);
+        strategies.put("maglev", MaglevHash::new);
+
+        for (int size : new int[]{4, 16, 64}) {
+            List<String> servers = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                servers.add("192.168.1." + i + ":8008");
+            }
+            System.out.println("nodes = " + size);
+            compare(servers, 200000, strategies).forEach(result -> System.out.printf(
+                    "  %-12s %8.1f ns/op  stdDev=%.4f  max=%.3f  movedOnAdd=%.4f  removeLast=%.4f  removeFirst=%.4f%n",
+                    result.getName(), result.getNanosPerLookup(), result.getStandardDeviation(),
+                    result.getMaxLoadFactor(), result.getMovedOnAdd(), result.getMovedOnRemoveLast(),
+                    result.getMovedOnRemoveFirst()));
+        }
+    }
+}
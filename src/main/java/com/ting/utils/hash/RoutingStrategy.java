@@ -0,0 +1,70 @@
+package com.ting.utils.hash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 路由策略
+ * <p>
+ * 将key映射到某个服务器节点，不同的实现在查询耗时、内存占用以及节点变更时需要迁移的key数量上各有取舍，
+ * 可以通过{@link RoutingComparison}进行比较后选择
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ * @see ConformityHash hash环
+ * @see JumpConsistentHash 跳跃一致性hash
+ * @see RendezvousHash 最高随机权重hash
+ * @see MaglevHash Maglev查找表
+ */
+public interface RoutingStrategy {
+
+    /**
+     * 获取key对应的服务器节点
+     *
+     * @param key key
+     * @return 服务器节点
+     */
+    String getAddr(String key);
+
+    /**
+     * 批量路由，按服务器节点分组
+     *
+     * @param keys key
+     * @param <K>  key的类型
+     * @return key:服务器节点；value:路由到该节点的key，保持原有顺序
+     */
+    default <K extends CharSequence> Map<String, List<K>> groupByNode(Collection<K> keys) {
+        Map<String, List<K>> map = new LinkedHashMap<>();
+        for (K key : keys) {
+            map.computeIfAbsent(getAddr(key.toString()), node -> new ArrayList<>()).add(key);
+        }
+        return map;
+    }
+
+    /**
+     * 新增服务器节点
+     *
+     * @param server 服务器节点
+     * @return 节点已存在时返回false
+     */
+    boolean addNode(String server);
+
+    /**
+     * 删除服务器节点
+     *
+     * @param server 服务器节点
+     * @return 节点不存在时返回false
+     */
+    boolean removeNode(String server);
+
+    /**
+     * 当前的服务器节点
+     *
+     * @return 服务器节点
+     */
+    List<String> getNodes();
+}
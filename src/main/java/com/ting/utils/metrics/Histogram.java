@@ -0,0 +1,178 @@
+package com.ting.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数线性直方图
+ * <p>
+ * 每个2的幂区间再平均分成16个桶，相对误差不超过1/16，0到Long.MAX_VALUE共960个桶。
+ * 记录只有一次数组自增、两次LongAdder累加和一次最大值比较，没有锁也不分配对象。
+ * 桶计数一直累加，{@link #rotate()}时保存一份计数，分位数由当前计数减去上上次保存的计数得到，
+ * 统计范围是最近1到2个窗口，不会被启动以来的历史数据稀释
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class Histogram {
+
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 当前窗口和上一个窗口的最大值
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    private volatile long previousMax;
+
+    /**
+     * 上一次和上上次rotate时的桶计数
+     */
+    private long[] previous = new long[BUCKETS];
+
+    private volatile long[] baseline = new long[BUCKETS];
+
+    /**
+     * 记录一个值，负数按0记录
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 开始新的窗口，由定时任务单线程调用
+     */
+    public synchronized void rotate() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        baseline = previous;
+        previous = snapshot;
+        previousMax = max.getAndSet(0);
+    }
+
+    /**
+     * @return 启动以来的记录次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return 启动以来记录值的总和
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return 最近1到2个窗口的最大值
+     */
+    public long getMax() {
+        return Math.max(max.get(), previousMax);
+    }
+
+    /**
+     * 计算最近1到2个窗口的多个分位数
+     *
+     * @param quantiles 从小到大的分位数，如0.5、0.99
+     * @return 对应的值，取所在桶的上界并且不超过最大值，窗口内没有数据时为0
+     */
+    public long[] quantiles(double... quantiles) {
+        long[] base = baseline;
+        long[] window = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            window[i] = counts.get(i) - base[i];
+            total += window[i];
+        }
+        long[] values = new long[quantiles.length];
+        if (total == 0) {
+            return values;
+        }
+        long max = getMax();
+        long seen = 0;
+        int bucket = 0;
+        for (int q = 0; q < quantiles.length; q++) {
+            long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            while (bucket < BUCKETS - 1 && seen + window[bucket] < rank) {
+                seen += window[bucket++];
+            }
+            values[q] = Math.min(upperBound(bucket), max);
+        }
+        return values;
+    }
+
+    static int index(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) - SUB_COUNT);
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = (index & (SUB_COUNT - 1)) + SUB_COUNT;
+        long upper = ((sub + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * 测试记录耗时和分位数误差
+     */
+    public static void main(String[] args) {
+        Histogram histogram = new Histogram();
+        java.util.Random random = new java.util.Random(1);
+        long[] values = new long[1 << 20];
+        for (int i = 0; i < values.length; i++) {
+            // 对数正态分布，中位数约100微秒
+            values[i] = (long) Math.exp(11.5 + random.nextGaussian());
+        }
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 20_000_000; i++) {
+                histogram.record(values[i & (values.length - 1)]);
+            }
+            System.out.printf("每次记录%.1f纳秒%n", (System.nanoTime() - start) / 20_000_000.0);
+        }
+        Histogram window = new Histogram();
+        for (long value : values) {
+            window.record(value);
+        }
+        long[] sorted = values.clone();
+        java.util.Arrays.sort(sorted);
+        double[] quantiles = {0.5, 0.99, 0.999, 1};
+        long[] estimated = window.quantiles(quantiles);
+        for (int i = 0; i < quantiles.length; i++) {
+            long exact = sorted[(int) Math.ceil(quantiles[i] * sorted.length) - 1];
+            System.out.printf("p%s 精确%d 估计%d 误差%.2f%%%n", quantiles[i], exact, estimated[i],
+                    (estimated[i] - exact) * 100.0 / exact);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ting.utils.metrics;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * 记录序列化后写入和读取的字节数
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class MeteredRedisSerializer<T> implements RedisSerializer<T> {
+
+    public static final String NAME = "ting_redis";
+
+    private final RedisSerializer<T> delegate;
+
+    private final OperationMetrics write;
+
+    private final OperationMetrics read;
+
+    public MeteredRedisSerializer(RedisSerializer<T> delegate, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.write = registry.operation(NAME, "direction", "write");
+        this.read = registry.operation(NAME, "direction", "read");
+    }
+
+    @Override
+    public byte[] serialize(T t) throws SerializationException {
+        byte[] bytes = delegate.serialize(t);
+        if (bytes != null) {
+            write.recordPayload(bytes.length);
+        }
+        return bytes;
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes != null) {
+            read.recordPayload(bytes.length);
+        }
+        return delegate.deserialize(bytes);
+    }
+
+    @Override
+    public boolean canSerialize(Class<?> type) {
+        return delegate.canSerialize(type);
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return delegate.getTargetType();
+    }
+}
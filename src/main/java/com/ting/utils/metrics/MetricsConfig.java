@@ -0,0 +1,73 @@
+package com.ting.utils.metrics;
+
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 指标配置，ting.metrics.enabled=true时生效
+ * <p>
+ * 替换spring boot默认的lettuce ClientResources以记录每条命令的耗时，
+ * 包装所有RedisTemplate的value和hash value序列化以记录数据大小，并统计/geo下所有接口
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(MetricsProperties.class)
+@ConditionalOnProperty(prefix = "ting.metrics", name = "enabled", havingValue = "true")
+public class MetricsConfig {
+
+    @Bean
+    public MetricsRegistry metricsRegistry(MetricsProperties properties) {
+        return new MetricsRegistry(properties.getWindow());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources(MetricsRegistry metricsRegistry) {
+        return DefaultClientResources.builder()
+                .commandLatencyRecorder(new RedisCommandRecorder(metricsRegistry))
+                .build();
+    }
+
+    @Bean
+    public FilterRegistrationBean<HttpMetricsFilter> geoMetricsFilter(MetricsRegistry metricsRegistry) {
+        FilterRegistrationBean<HttpMetricsFilter> registration =
+                new FilterRegistrationBean<>(new HttpMetricsFilter(metricsRegistry, "ting_geo_http"));
+        registration.addUrlPatterns("/geo/*");
+        return registration;
+    }
+
+    @Bean
+    public static BeanPostProcessor meteredRedisSerializerPostProcessor(ObjectProvider<MetricsRegistry> metricsRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RedisTemplate) {
+                    RedisTemplate template = (RedisTemplate) bean;
+                    MetricsRegistry registry = metricsRegistry.getObject();
+                    template.setValueSerializer(metered(template.getValueSerializer(), registry));
+                    template.setHashValueSerializer(metered(template.getHashValueSerializer(), registry));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static <T> RedisSerializer<T> metered(RedisSerializer<T> serializer, MetricsRegistry registry) {
+        if (serializer == null || serializer instanceof MeteredRedisSerializer) {
+            return serializer;
+        }
+        return new MeteredRedisSerializer<>(serializer, registry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ting.utils.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 指标配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.metrics")
+public class MetricsProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled;
+
+    /**
+     * 分位数和最大值的统计窗口，输出最近1到2个窗口的数据
+     */
+    private Duration window = Duration.ofMinutes(1);
+}
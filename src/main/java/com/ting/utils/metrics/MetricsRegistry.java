@@ -0,0 +1,153 @@
+package com.ting.utils.metrics;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标注册表，按指标名和标签值保存{@link OperationMetrics}，输出prometheus文本格式
+ * <p>
+ * 耗时输出为summary（p50、p99、p999，单位秒）和最大值，数据大小输出为summary（单位字节），错误输出为counter。
+ * 分位数和最大值统计最近1到2个窗口，_sum、_count和错误次数从启动开始累加
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class MetricsRegistry implements InitializingBean, DisposableBean {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    private static final String[] QUANTILE_LABELS = {"0.5", "0.99", "0.999"};
+
+    private final Map<String, Family> families = new ConcurrentHashMap<>();
+
+    private final long windowMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-rotate");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MetricsRegistry(Duration window) {
+        Assert.isTrue(window.toMillis() > 0, "统计窗口必须大于0");
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 获取操作的指标，不存在时创建
+     *
+     * @param name  指标名前缀，如ting_redis_command
+     * @param label 标签名，如command
+     * @param value 标签值，如GET
+     * @return 指标
+     */
+    public OperationMetrics operation(String name, String label, String value) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, key -> new Family(label));
+        }
+        OperationMetrics metrics = family.operations.get(value);
+        return metrics != null ? metrics : family.operations.computeIfAbsent(value, key -> new OperationMetrics());
+    }
+
+    void rotate() {
+        families.values().forEach(family -> family.operations.values().forEach(OperationMetrics::rotate));
+    }
+
+    /**
+     * @return prometheus文本格式
+     */
+    public String scrape() {
+        StringBuilder builder = new StringBuilder(4096);
+        new TreeMap<>(families).forEach((name, family) -> {
+            Map<String, OperationMetrics> operations = new TreeMap<>(family.operations);
+            if (operations.values().stream().anyMatch(metrics -> metrics.getLatency().getCount() > 0)) {
+                String seconds = name + "_seconds";
+                builder.append("# TYPE ").append(seconds).append(" summary\n");
+                operations.forEach((value, metrics) -> summary(builder, seconds, family.label, value, metrics.getLatency(), 1e-9));
+                builder.append("# TYPE ").append(seconds).append("_max gauge\n");
+                operations.forEach((value, metrics) -> sample(builder, seconds + "_max", family.label, value, null,
+                        metrics.getLatency().getMax() * 1e-9));
+            }
+            if (operations.values().stream().anyMatch(metrics -> metrics.getPayload().getCount() > 0)) {
+                String bytes = name + "_payload_bytes";
+                builder.append("# TYPE ").append(bytes).append(" summary\n");
+                operations.forEach((value, metrics) -> summary(builder, bytes, family.label, value, metrics.getPayload(), 1));
+            }
+            if (operations.values().stream().anyMatch(metrics -> metrics.getErrors().sum() > 0)) {
+                String errors = name + "_errors_total";
+                builder.append("# TYPE ").append(errors).append(" counter\n");
+                operations.forEach((value, metrics) -> sample(builder, errors, family.label, value, null,
+                        metrics.getErrors().sum()));
+            }
+        });
+        return builder.toString();
+    }
+
+    private static void summary(StringBuilder builder, String name, String label, String value, Histogram histogram,
+                                double scale) {
+        long[] quantiles = histogram.quantiles(QUANTILES);
+        for (int i = 0; i < quantiles.length; i++) {
+            sample(builder, name, label, value, QUANTILE_LABELS[i], quantiles[i] * scale);
+        }
+        sample(builder, name + "_sum", label, value, null, histogram.getSum() * scale);
+        sample(builder, name + "_count", label, value, null, histogram.getCount());
+    }
+
+    private static void sample(StringBuilder builder, String name, String label, String value, String quantile,
+                               double sample) {
+        builder.append(name).append('{').append(label).append("=\"");
+        escape(builder, value);
+        builder.append('"');
+        if (quantile != null) {
+            builder.append(",quantile=\"").append(quantile).append('"');
+        }
+        builder.append("} ").append(sample).append('\n');
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                builder.append('\\').append(c);
+            } else if (c == '\n') {
+                builder.append("\\n");
+            } else {
+                builder.append(c);
+            }
+        }
+    }
+
+    private static class Family {
+
+        private final String label;
+
+        private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+        private Family(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.ting.utils.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的耗时、数据大小和错误次数
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Getter
+public class OperationMetrics {
+
+    /**
+     * 耗时（纳秒）
+     */
+    private final Histogram latency = new Histogram();
+
+    /**
+     * 数据大小（字节）
+     */
+    private final Histogram payload = new Histogram();
+
+    private final LongAdder errors = new LongAdder();
+
+    public void recordLatency(long nanos) {
+        latency.record(nanos);
+    }
+
+    public void recordPayload(long bytes) {
+        payload.record(bytes);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    void rotate() {
+        latency.rotate();
+        payload.rotate();
+    }
+}
@@ -0,0 +1,34 @@
+package com.ting.utils.metrics;
+
+import io.lettuce.core.metrics.CommandLatencyRecorder;
+import io.lettuce.core.protocol.ProtocolKeyword;
+
+import java.net.SocketAddress;
+
+/**
+ * 记录lettuce发送的每条redis命令的耗时，在netty的io线程中调用
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class RedisCommandRecorder implements CommandLatencyRecorder {
+
+    public static final String NAME = "ting_redis_command";
+
+    private final MetricsRegistry registry;
+
+    public RedisCommandRecorder(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @param firstResponseLatency 发送到收到第一个字节的纳秒数
+     * @param completionLatency    发送到解析完成的纳秒数
+     */
+    @Override
+    public void recordCommandLatency(SocketAddress local, SocketAddress remote, ProtocolKeyword commandType,
+                                     long firstResponseLatency, long completionLatency) {
+        registry.operation(NAME, "command", commandType.name()).recordLatency(completionLatency);
+    }
+}
@@ -0,0 +1,97 @@
+package com.ting.utils.redis;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 批量操作的结果，与请求的顺序一一对应
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Getter
+@ToString
+public class BatchResult<T> {
+
+    private final List<Item<T>> items;
+
+    /**
+     * 失败的数量
+     */
+    private int failed;
+
+    BatchResult(int size) {
+        this.items = new ArrayList<>(size);
+    }
+
+    void succeed(Object key, T value) {
+        items.add(new Item<>(key, true, value, null));
+    }
+
+    void fail(Object key, Throwable e) {
+        items.add(new Item<>(key, false, null, e.getMessage() == null ? e.getClass().getName() : e.getMessage()));
+        failed++;
+    }
+
+    /**
+     * @return 是否全部成功
+     */
+    public boolean isSuccess() {
+        return failed == 0;
+    }
+
+    /**
+     * @return 每一项的返回值，失败的为null
+     */
+    public List<T> getValues() {
+        List<T> values = new ArrayList<>(items.size());
+        for (Item<T> item : items) {
+            values.add(item.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * @return 失败的项
+     */
+    public List<Item<T>> getFailures() {
+        if (failed == 0) {
+            return Collections.emptyList();
+        }
+        return items.stream().filter(item -> !item.isSuccess()).collect(Collectors.toList());
+    }
+
+    /**
+     * 单项结果
+     */
+    @Value
+    public static class Item<T> {
+
+        /**
+         * key，hash操作时为field
+         */
+        Object key;
+
+        /**
+         * 命令是否执行成功；SETNX未写入等情况仍然是成功的，结果在value中
+         */
+        boolean success;
+
+        /**
+         * redis的返回值
+         */
+        T value;
+
+        /**
+         * 失败原因
+         */
+        String error;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ting.utils.redis;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热点key统计配置，ting.redis.hot-key.enabled=true时生效
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(HotKeyProperties.class)
+@ConditionalOnProperty(prefix = "ting.redis.hot-key", name = "enabled", havingValue = "true")
+public class HotKeyConfig {
+
+    @Bean
+    public HotKeyDetector hotKeyDetector(HotKeyProperties properties) {
+        return new HotKeyDetector(properties);
+    }
+}
@@ -0,0 +1,278 @@
+package com.ting.utils.redis;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 热点key统计
+ * <p>
+ * 按采样率随机抽取访问，写入count-min sketch得到估计次数；估计次数不低于当前top-K门槛的key放入候选集合，
+ * 候选超过2K个时由抢到tryLock的线程裁剪回K个并提高门槛，访问线程之间没有阻塞的锁。
+ * 统计按固定窗口滚动，对外提供上一个完整窗口的结果，估计次数已按采样率还原
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class HotKeyDetector implements InitializingBean, DisposableBean {
+
+    private final int sampleMask;
+
+    private final int sampleRate;
+
+    private final int width;
+
+    private final int depth;
+
+    private final int topK;
+
+    private final long windowMillis;
+
+    private volatile Window current;
+
+    private volatile Report last;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-hot-key");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotKeyDetector(HotKeyProperties properties) {
+        Assert.isTrue(Integer.bitCount(properties.getSampleRate()) == 1, "采样率必须是2的幂");
+        Assert.isTrue(Integer.bitCount(properties.getWidth()) == 1, "sketch宽度必须是2的幂");
+        Assert.isTrue(properties.getDepth() > 0 && properties.getTopK() > 0, "sketch行数和topK必须大于0");
+        this.sampleRate = properties.getSampleRate();
+        this.sampleMask = sampleRate - 1;
+        this.width = properties.getWidth();
+        this.depth = properties.getDepth();
+        this.topK = properties.getTopK();
+        this.windowMillis = properties.getWindow().toMillis();
+        this.current = new Window(System.currentTimeMillis());
+        this.last = new Report(current.start, 0, sampleRate, Collections.emptyList());
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.scheduleAtFixedRate(this::rotate, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key redis key
+     */
+    public void record(String key) {
+        if ((ThreadLocalRandom.current().nextInt() & sampleMask) != 0 || key == null) {
+            return;
+        }
+        current.add(key);
+    }
+
+    /**
+     * @return 上一个完整窗口的热点key
+     */
+    public Report getLast() {
+        return last;
+    }
+
+    /**
+     * @return 当前未结束窗口的热点key
+     */
+    public Report getCurrent() {
+        Window window = current;
+        return window.report(System.currentTimeMillis());
+    }
+
+    /**
+     * 结束当前窗口，由定时任务调用
+     */
+    void rotate() {
+        Window previous = current;
+        long now = System.currentTimeMillis();
+        current = new Window(now);
+        last = previous.report(now);
+    }
+
+    /**
+     * 测试记录的耗时：10万个key中少数key访问频率高（近似zipf分布）
+     */
+    public static void main(String[] args) {
+        HotKeyDetector detector = new HotKeyDetector(new HotKeyProperties());
+        int keyCount = 100_000;
+        String[] keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "user:" + i;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] sequence = new int[1 << 20];
+        for (int i = 0; i < sequence.length; i++) {
+            // 下标越小概率越高
+            sequence[i] = (int) Math.min(keyCount - 1, Math.pow(keyCount, random.nextDouble()) - 1);
+        }
+        for (int round = 0; round < 5; round++) {
+            detector.rotate();
+            int operations = 20_000_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < operations; i++) {
+                detector.record(keys[sequence[i & (sequence.length - 1)]]);
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("每次记录%.1f纳秒%n", (double) nanos / operations);
+        }
+        detector.rotate();
+        detector.getLast().getKeys().subList(0, 5).forEach(System.out::println);
+    }
+
+    /**
+     * 把hashCode打散，低32位和高32位分别作为双重hash的两个hash
+     */
+    private static long mix(int hash) {
+        long h = hash * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    /**
+     * 一个统计窗口
+     */
+    private final class Window {
+
+        private final long start;
+
+        private final AtomicLongArray counts = new AtomicLongArray(width * depth);
+
+        private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+        private final ReentrantLock trimLock = new ReentrantLock();
+
+        /**
+         * 进入候选集合的最低估计次数
+         */
+        private volatile long threshold;
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private void add(String key) {
+            long h = mix(key.hashCode());
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < depth; row++) {
+                int index = row * width + ((h1 + row * h2) & (width - 1));
+                estimate = Math.min(estimate, counts.incrementAndGet(index));
+            }
+            if (estimate < threshold) {
+                return;
+            }
+            candidates.put(key, estimate);
+            if (candidates.size() > topK * 2 && trimLock.tryLock()) {
+                try {
+                    List<Map.Entry<String, Long>> sorted = sorted();
+                    for (int i = topK; i < sorted.size(); i++) {
+                        candidates.remove(sorted.get(i).getKey(), sorted.get(i).getValue());
+                    }
+                    threshold = sorted.get(Math.min(topK, sorted.size()) - 1).getValue();
+                } finally {
+                    trimLock.unlock();
+                }
+            }
+        }
+
+        private List<Map.Entry<String, Long>> sorted() {
+            List<Map.Entry<String, Long>> sorted = new ArrayList<>(candidates.entrySet());
+            sorted.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+            return sorted;
+        }
+
+        private Report report(long end) {
+            List<Map.Entry<String, Long>> sorted = sorted();
+            double seconds = Math.max(1, end - start) / 1000.0;
+            List<HotKey> keys = new ArrayList<>(Math.min(topK, sorted.size()));
+            for (int i = 0; i < sorted.size() && i < topK; i++) {
+                long count = sorted.get(i).getValue() * sampleRate;
+                keys.add(new HotKey(sorted.get(i).getKey(), count, count / seconds));
+            }
+            return new Report(start, end - start, sampleRate, keys);
+        }
+    }
+
+    /**
+     * 一个窗口的统计结果
+     */
+    @Getter
+    @ToString
+    public static class Report {
+
+        /**
+         * 窗口开始时间（毫秒）
+         */
+        private final long windowStart;
+
+        /**
+         * 窗口长度（毫秒）
+         */
+        private final long windowMillis;
+
+        private final int sampleRate;
+
+        /**
+         * 按估计次数降序
+         */
+        private final List<HotKey> keys;
+
+        Report(long windowStart, long windowMillis, int sampleRate, List<HotKey> keys) {
+            this.windowStart = windowStart;
+            this.windowMillis = windowMillis;
+            this.sampleRate = sampleRate;
+            this.keys = Collections.unmodifiableList(keys);
+        }
+    }
+
+    /**
+     * 热点key
+     */
+    @Getter
+    @ToString
+    public static class HotKey {
+
+        private final String key;
+
+        /**
+         * 估计的访问次数，count-min sketch只会高估
+         */
+        private final long estimatedCount;
+
+        /**
+         * 估计的每秒访问次数
+         */
+        private final double ratePerSecond;
+
+        HotKey(String key, long estimatedCount, double ratePerSecond) {
+            this.key = key;
+            this.estimatedCount = estimatedCount;
+            this.ratePerSecond = ratePerSecond;
+        }
+    }
+}
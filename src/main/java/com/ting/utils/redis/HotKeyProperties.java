@@ -0,0 +1,48 @@
+package com.ting.utils.redis;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 热点key统计配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.redis.hot-key")
+public class HotKeyProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled;
+
+    /**
+     * 采样率，每sampleRate次访问统计一次，必须是2的幂
+     */
+    private int sampleRate = 64;
+
+    /**
+     * count-min sketch每行的计数器数量，必须是2的幂
+     */
+    private int width = 4096;
+
+    /**
+     * count-min sketch的行数
+     */
+    private int depth = 4;
+
+    /**
+     * 保留的热点key数量
+     */
+    private int topK = 20;
+
+    /**
+     * 统计窗口
+     */
+    private Duration window = Duration.ofSeconds(10);
+}
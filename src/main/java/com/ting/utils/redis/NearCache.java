@@ -0,0 +1,192 @@
+package com.ting.utils.redis;
+
+import com.ting.utils.cache.CacheStats;
+import com.ting.utils.cache.LocalCache;
+import com.ting.utils.cache.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * redis前的本地近端缓存
+ * <p>
+ * 只缓存配置的前缀下的key，未命中时读redis并写入本地（相同key的并发读取只访问一次redis）。
+ * {@link RedisUtils}修改key后先失效本地缓存，再通过pub/sub通知其他实例失效；
+ * 消息丢失时依赖过期时间兜底。
+ * <p>
+ * key按hash分到多个段，每段有一个失效版本号，读取期间版本号变化时不写入本地，
+ * 避免读到旧值的请求在失效之后把旧值写回缓存
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class NearCache implements MessageListener {
+
+    private static final int STRIPES = 1024;
+
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final NearCacheProperties properties;
+
+    /**
+     * 缓存的值，redis中不存在时为Optional.empty()
+     */
+    private final LocalCache<String, Optional<Object>> cache;
+
+    private final SingleFlight<String, Optional<Object>> singleFlight = new SingleFlight<>();
+
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder received = new LongAdder();
+
+    public NearCache(StringRedisTemplate stringRedisTemplate, NearCacheProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        this.cache = new LocalCache<>(properties.getMaximumSize(), properties.getTtl());
+    }
+
+    /**
+     * @param name key
+     * @return 是否缓存该key
+     */
+    public boolean isCached(String name) {
+        for (String prefix : properties.getPrefixes()) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取，前缀未开启缓存时直接读取
+     *
+     * @param name   key，同一个key只能对应一种读取方式
+     * @param loader 从redis读取
+     * @return 值
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String name, Supplier<T> loader) {
+        if (!isCached(name)) {
+            return loader.get();
+        }
+        Optional<Object> cached = cache.getIfPresent(name);
+        if (cached != null) {
+            return (T) cached.orElse(null);
+        }
+        // 版本号由实际读取redis的请求在读取前获取并负责写入本地，加入已有读取的请求只使用结果，
+        // 否则在失效之后才加入的请求会拿到失效前开始的读取结果，并用失效后的版本号把旧值写回缓存
+        Optional<Object> loaded = singleFlight.execute(name, () -> {
+            int stripe = stripe(name);
+            long version = versions.get(stripe);
+            Optional<Object> value = Optional.ofNullable(loader.get());
+            if (versions.get(stripe) == version) {
+                cache.put(name, value);
+                // 写入本地期间发生了失效
+                if (versions.get(stripe) != version) {
+                    cache.invalidate(name);
+                }
+            }
+            return value;
+        });
+        return (T) loaded.orElse(null);
+    }
+
+    /**
+     * 只读取本地已有的缓存，本地没有时不从redis加载
+     *
+     * @param name key，同一个key只能对应一种读取方式
+     * @return 本地没有缓存或缓存的值为null时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(String name) {
+        if (!isCached(name)) {
+            return null;
+        }
+        Optional<Object> cached = cache.getIfPresent(name);
+        return cached == null ? null : (T) cached.orElse(null);
+    }
+
+    /**
+     * 失效本地缓存并通知其他实例
+     *
+     * @param names key
+     */
+    public void invalidate(Collection<String> names) {
+        StringBuilder message = new StringBuilder();
+        for (String name : names) {
+            if (isCached(name)) {
+                invalidateLocal(name);
+                if (message.length() > 0) {
+                    message.append(SEPARATOR);
+                }
+                message.append(name);
+            }
+        }
+        if (message.length() == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), message.toString());
+            published.increment();
+        } catch (Exception e) {
+            log.warn("近端缓存失效消息发送失败", e);
+        }
+    }
+
+    private void invalidateLocal(String name) {
+        versions.incrementAndGet(stripe(name));
+        cache.invalidate(name);
+    }
+
+    /**
+     * 接收其他实例（包括自己）的失效消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        received.increment();
+        for (String name : new String(message.getBody(), StandardCharsets.UTF_8).split(SEPARATOR)) {
+            invalidateLocal(name);
+        }
+    }
+
+    /**
+     * @return 命中率等统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("prefixes", properties.getPrefixes());
+        map.put("hits", stats.getHits());
+        map.put("misses", stats.getMisses());
+        map.put("hitRate", stats.getHitRate());
+        map.put("evictions", stats.getEvictions());
+        map.put("size", stats.getSize());
+        map.put("loadsShared", singleFlight.getShared());
+        map.put("invalidationsPublished", published.sum());
+        map.put("invalidationsReceived", received.sum());
+        return map;
+    }
+
+    private static int stripe(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
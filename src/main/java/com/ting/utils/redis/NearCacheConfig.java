@@ -0,0 +1,41 @@
+package com.ting.utils.redis;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 近端缓存配置，ting.redis.near-cache.enabled=true时生效
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(NearCacheProperties.class)
+@ConditionalOnProperty(prefix = "ting.redis.near-cache", name = "enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    @Bean
+    public NearCache nearCache(StringRedisTemplate stringRedisTemplate, NearCacheProperties properties) {
+        return new NearCache(stringRedisTemplate, properties);
+    }
+
+    /**
+     * 订阅失效消息
+     */
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                    NearCache nearCache,
+                                                                    NearCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(nearCache, new ChannelTopic(properties.getChannel()));
+        return container;
+    }
+}
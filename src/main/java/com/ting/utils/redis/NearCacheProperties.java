@@ -0,0 +1,45 @@
+package com.ting.utils.redis;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 本地近端缓存配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.redis.near-cache")
+public class NearCacheProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled;
+
+    /**
+     * 开启缓存的key前缀，不在其中的key每次都读redis
+     */
+    private List<String> prefixes = new ArrayList<>();
+
+    /**
+     * 最多缓存的key数量
+     */
+    private int maximumSize = 10000;
+
+    /**
+     * 写入后的过期时间，失效消息丢失时最多读到这么久之前的数据
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * 广播失效消息的频道
+     */
+    private String channel = "ting:near-cache:invalidate";
+}
@@ -1,18 +1,35 @@
 package com.ting.utils.redis;
 
+import com.ting.utils.metrics.MetricsRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -26,9 +43,81 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RedisUtils {
 
+    /**
+     * MGET、HMGET单条命令最多的key数量，避免单条命令阻塞redis太久
+     */
+    private static final int MULTI_GET_SIZE = 100;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
+    /**
+     * 批量操作时每次pipeline的命令数量
+     */
+    private int batchSize = 1000;
+
+    /**
+     * 近端缓存，未开启时为null
+     */
+    @Autowired(required = false)
+    private NearCache nearCache;
+
+    /**
+     * 热点key统计，未开启时为null
+     */
+    @Autowired(required = false)
+    private HotKeyDetector hotKeyDetector;
+
+    /**
+     * 指标，未开启时为null
+     */
+    @Autowired(required = false)
+    private MetricsRegistry metricsRegistry;
+
+    public RedisUtils() {
+    }
+
+    public RedisUtils(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Value("${ting.redis.batch-size:1000}")
+    public void setBatchSize(int batchSize) {
+        Assert.isTrue(batchSize > 0, "批量大小必须大于0");
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 创建连接另一个redis、其余配置与当前实例相同的工具类，用于分片
+     * <p>
+     * 新的RedisTemplate沿用当前RedisTemplate的全部序列化（包括编码和指标的包装），
+     * 近端缓存、热点key统计、指标和批量大小与当前实例共用
+     *
+     * @param factory 连接工厂
+     * @return 新的redis工具类
+     */
+    public RedisUtils forConnectionFactory(RedisConnectionFactory factory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setDefaultSerializer(redisTemplate.getDefaultSerializer());
+        template.setKeySerializer(redisTemplate.getKeySerializer());
+        template.setValueSerializer(redisTemplate.getValueSerializer());
+        template.setHashKeySerializer(redisTemplate.getHashKeySerializer());
+        template.setHashValueSerializer(redisTemplate.getHashValueSerializer());
+        template.setStringSerializer(redisTemplate.getStringSerializer());
+        template.afterPropertiesSet();
+        RedisUtils utils = new RedisUtils(template);
+        utils.batchSize = batchSize;
+        utils.nearCache = nearCache;
+        utils.hotKeyDetector = hotKeyDetector;
+        utils.metricsRegistry = metricsRegistry;
+        return utils;
+    }
+
+    RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
     /**
      * 将map封装到hash中
      *
@@ -39,11 +128,14 @@ public class RedisUtils {
      * @return
      */
     public <K, V> boolean setValueByMap(String name, Map<K, V> map) {
+        touch(name);
         try {
             redisTemplate.opsForHash().putAll(name, map);
         } catch (Exception e) {
-            e.printStackTrace();
+            error("setValueByMap", name, e);
             return false;
+        } finally {
+            invalidate(name);
         }
         return true;
 
@@ -58,11 +150,14 @@ public class RedisUtils {
      * @return
      */
     public boolean updateValueByField(String name, Object field, Object value) {
+        touch(name);
         try {
             redisTemplate.opsForHash().put(name, field, value);
         } catch (Exception e) {
-            e.printStackTrace();
+            error("updateValueByField", name, e);
             return false;
+        } finally {
+            invalidate(name);
         }
         return true;
 
@@ -77,8 +172,12 @@ public class RedisUtils {
      * @return
      */
     public boolean setValueByField(String name, Object field, Object value) {
-        return redisTemplate.opsForHash().putIfAbsent(name, field, value);
-
+        touch(name);
+        try {
+            return redisTemplate.opsForHash().putIfAbsent(name, field, value);
+        } finally {
+            invalidate(name);
+        }
 
     }
 
@@ -91,12 +190,15 @@ public class RedisUtils {
      * @return
      */
     public <T> boolean setValue(String name, T t) {
+        touch(name);
         try {
             redisTemplate.opsForValue().set(name, t);
         } catch (Exception e) {
-            e.printStackTrace();
+            error("setValue", name, e);
             return false;
 
+        } finally {
+            invalidate(name);
         }
         return true;
 
@@ -112,8 +214,10 @@ public class RedisUtils {
      * @return
      */
     public <T> boolean setLeftAllList(String name, List<T> list) {
+        touch(name);
         Assert.notEmpty(list, "数据不能为空");
         Long aLong = redisTemplate.opsForList().leftPushAll(name, list);
+        invalidate(name);
         if (aLong > 0) {
             return true;
         }
@@ -130,8 +234,10 @@ public class RedisUtils {
      * @return
      */
     public <T> boolean setRightAllList(String name, List<T> list) {
+        touch(name);
         Assert.notEmpty(list, "数据不能为空");
         Long aLong = redisTemplate.opsForList().rightPushAll(name, list);
+        invalidate(name);
         if (aLong > 0) {
             return true;
         }
@@ -148,9 +254,11 @@ public class RedisUtils {
      * @return
      */
     public boolean setEX(String name, String value, long time) {
+        touch(name);
         Object execute = redisTemplate.execute((RedisCallback<Object>) connection ->
                 connection.setEx(name.getBytes(StandardCharsets.UTF_8), time, value.getBytes(StandardCharsets.UTF_8))
         );
+        invalidate(name);
         return !ObjectUtils.isEmpty(execute);
     }
 
@@ -162,27 +270,432 @@ public class RedisUtils {
      * @return
      */
     public boolean setNX(String name, String value) {
-        Object execute = redisTemplate.execute((RedisCallback<Object>) connection ->
+        touch(name);
+        Boolean execute = redisTemplate.execute((RedisCallback<Boolean>) connection ->
                 connection.setNX(name.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8))
         );
-        return !ObjectUtils.isEmpty(execute);
+        invalidate(name);
+        return Boolean.TRUE.equals(execute);
     }
 
     /**
-     * 删除
+     * NX并设置过期时间，一条SET key value NX EX完成，不会出现写入后未设置过期时间的key
      *
      * @param name
-     * @return
+     * @param value
+     * @param time  过期时间（秒）
+     * @return key不存在并写入时返回true
+     */
+    public boolean setNX(String name, String value, long time) {
+        touch(name);
+        Assert.isTrue(time > 0, "过期时间必须大于0");
+        Boolean execute = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.set(name.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8),
+                        Expiration.seconds(time), RedisStringCommands.SetOption.SET_IF_ABSENT)
+        );
+        invalidate(name);
+        return Boolean.TRUE.equals(execute);
+    }
+
+    /**
+     * 读取String，key的前缀开启了近端缓存时优先读本地
+     *
+     * @param name key
+     * @param <T>  值的类型
+     * @return 不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getValue(String name) {
+        touch(name);
+        return nearCache == null
+                ? (T) redisTemplate.opsForValue().get(name)
+                : nearCache.get(name, () -> (T) redisTemplate.opsForValue().get(name));
+    }
+
+    /**
+     * 读取整个hash，key的前缀开启了近端缓存时优先读本地
+     *
+     * @param name key
+     * @return 不存在时返回空map
+     */
+    public Map<Object, Object> getHash(String name) {
+        touch(name);
+        return nearCache == null
+                ? redisTemplate.opsForHash().entries(name)
+                : nearCache.get(name, () -> Collections.unmodifiableMap(redisTemplate.opsForHash().entries(name)));
+    }
+
+    /**
+     * 读取hash的字段，本地已经缓存了整个hash（通过{@link #getHash(String)}读取过）时从本地读取，
+     * 否则只HGET这一个字段，不会为了一个字段加载整个hash
+     *
+     * @param name  key
+     * @param field 字段
+     * @return 不存在时返回null
+     */
+    public Object getValueByField(String name, Object field) {
+        touch(name);
+        if (nearCache != null) {
+            Map<Object, Object> hash = nearCache.getIfPresent(name);
+            if (hash != null) {
+                return hash.get(field);
+            }
+        }
+        return redisTemplate.opsForHash().get(name, field);
+    }
+
+    /**
+     * SCAN迭代器，遍历过程中新增或删除的key可能遍历不到，也可能重复；
+     * key序列化为JDK序列化时，通过RedisTemplate写入的key带有序列化的头部，pattern需要以*开头才能匹配
+     *
+     * @param pattern 匹配规则，与redis中实际存储的key进行匹配
+     * @param count   每次SCAN的COUNT
+     * @return 迭代器，使用完后需要关闭
+     */
+    public ScanIterator scanIterator(String pattern, long count) {
+        return new ScanIterator(rawScan(pattern, count), redisTemplate.getKeySerializer());
+    }
+
+    /**
+     * 使用SCAN分批遍历key，不会像KEYS一样阻塞redis
+     *
+     * @param pattern   匹配规则，与redis中实际存储的key进行匹配
+     * @param count     每次SCAN的COUNT
+     * @param batchSize 每批回调的key数量
+     * @param consumer  每批key的处理方法
+     * @return 遍历到的key数量
+     */
+    public long scan(String pattern, long count, int batchSize, Consumer<List<String>> consumer) {
+        Assert.isTrue(batchSize > 0, "批量大小必须大于0");
+        long total = 0;
+        try (ScanIterator iterator = scanIterator(pattern, count)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    total += batch.size();
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                consumer.accept(batch);
+                total += batch.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 按匹配规则删除，SCAN出的key每batchSize个通过一次pipeline发送UNLINK，每条UNLINK最多100个key；
+     * UNLINK在后台线程释放内存，不会因为大key阻塞redis
+     *
+     * @param pattern 匹配规则，与redis中实际存储的key进行匹配
+     * @param count   每次SCAN的COUNT
+     * @return 实际删除的key数量
+     */
+    public long deleteByPattern(String pattern, long count) {
+        return scanPipelined(pattern, count, (connection, chunk) -> connection.unlink(chunk.toArray(new byte[0][])),
+                reply -> (Long) reply);
+    }
+
+    /**
+     * 按匹配规则设置过期时间，SCAN出的key每batchSize个通过一次pipeline发送EXPIRE
+     *
+     * @param pattern 匹配规则，与redis中实际存储的key进行匹配
+     * @param count   每次SCAN的COUNT
+     * @param time    过期时间（秒）
+     * @return 实际设置了过期时间的key数量
+     */
+    public long expireByPattern(String pattern, long count, long time) {
+        return scanPipelined(pattern, count, (connection, chunk) -> chunk.forEach(key -> connection.expire(key, time)),
+                reply -> Boolean.TRUE.equals(reply) ? 1 : 0);
+    }
+
+    /**
+     * 遍历匹配的key，每batchSize个key执行一次pipeline，每MULTI_GET_SIZE个key调用一次command
+     *
+     * @param affected 每个返回值对应的影响数量
+     * @return 影响数量的合计
+     */
+    private long scanPipelined(String pattern, long count, BiConsumer<RedisConnection, List<byte[]>> command,
+                               ToLongFunction<Object> affected) {
+        long total = 0;
+        try (Cursor<byte[]> cursor = rawScan(pattern, count)) {
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize || !cursor.hasNext()) {
+                    List<byte[]> keys = batch;
+                    List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                        for (int i = 0; i < keys.size(); i += MULTI_GET_SIZE) {
+                            command.accept(connection, keys.subList(i, Math.min(keys.size(), i + MULTI_GET_SIZE)));
+                        }
+                        return null;
+                    });
+                    for (Object reply : replies) {
+                        total += reply == null ? 0 : affected.applyAsLong(reply);
+                    }
+                    if (nearCache != null) {
+                        RedisSerializer<?> keySerializer = redisTemplate.getKeySerializer();
+                        invalidate(keys.stream().map(key -> ScanIterator.decode(keySerializer, key))
+                                .collect(Collectors.toList()));
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        return total;
+    }
+
+    private Cursor<byte[]> rawScan(String pattern, long count) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        return redisTemplate.executeWithStickyConnection(connection -> connection.scan(options));
+    }
+
+    /**
+     * 批量String，每batchSize个SET通过一次pipeline发送
+     *
+     * @param values key:name；value:值
+     * @return 每个key的结果
+     */
+    public BatchResult<Object> setValues(Map<String, ?> values) {
+        touch(values.keySet());
+        return invalidate(values.keySet(), pipelined(new ArrayList<>(values.entrySet()), Map.Entry::getKey,
+                (connection, entry) -> connection.set(rawKey(entry.getKey()), rawValue(entry.getValue()))));
+    }
+
+    /**
+     * 批量根据字段更新同一个hash
+     *
+     * @param name   hash
+     * @param fields key:字段；value:值
+     * @return 每个字段的结果，新增字段时为true，更新时为false
+     */
+    public BatchResult<Object> updateValueByFields(String name, Map<?, ?> fields) {
+        touch(name);
+        byte[] rawName = rawKey(name);
+        return invalidate(Collections.singleton(name), pipelined(new ArrayList<>(fields.entrySet()), Map.Entry::getKey,
+                (connection, entry) -> connection.hSet(rawName, rawHashKey(entry.getKey()), rawHashValue(entry.getValue()))));
+    }
+
+    /**
+     * 批量EX操作，与{@link #setEX(String, String, long)}一样按UTF-8写入key和value
+     *
+     * @param values key:name；value:值
+     * @param time   过期时间（秒）
+     * @return 每个key的结果
+     */
+    public BatchResult<Object> setEX(Map<String, String> values, long time) {
+        touch(values.keySet());
+        return invalidate(values.keySet(), pipelined(new ArrayList<>(values.entrySet()), Map.Entry::getKey,
+                (connection, entry) -> connection.setEx(entry.getKey().getBytes(StandardCharsets.UTF_8), time,
+                        entry.getValue().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 批量NX操作，与{@link #setNX(String, String)}一样按UTF-8写入key和value
+     *
+     * @param values key:name；value:值
+     * @return 每个key的结果，写入时为true，key已存在时为false
+     */
+    public BatchResult<Object> setNX(Map<String, String> values) {
+        touch(values.keySet());
+        return invalidate(values.keySet(), pipelined(new ArrayList<>(values.entrySet()), Map.Entry::getKey,
+                (connection, entry) -> connection.setNX(entry.getKey().getBytes(StandardCharsets.UTF_8),
+                        entry.getValue().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    /**
+     * 批量设置过期时间
+     *
+     * @param names key
+     * @param time  过期时间（秒）
+     * @return 每个key的结果，key不存在时为false
+     */
+    public BatchResult<Object> expire(Collection<String> names, long time) {
+        touch(names);
+        return invalidate(names, pipelined(new ArrayList<>(names), name -> name,
+                (connection, name) -> connection.expire(rawKey(name), time)));
+    }
+
+    /**
+     * 批量获取String，每100个key一条MGET，每batchSize个key通过一次pipeline发送
+     *
+     * @param names key
+     * @return 每个key的值，不存在时为null
+     */
+    public BatchResult<Object> getValues(Collection<String> names) {
+        touch(names);
+        return multiGet(new ArrayList<>(names), name -> name, redisTemplate.getValueSerializer(),
+                (connection, chunk) -> connection.mGet(chunk.stream().map(this::rawKey).toArray(byte[][]::new)));
+    }
+
+    /**
+     * 批量获取hash中的字段，每100个字段一条HMGET，每batchSize个字段通过一次pipeline发送
+     *
+     * @param name   hash
+     * @param fields 字段
+     * @return 每个字段的值，不存在时为null
+     */
+    public BatchResult<Object> getValuesByFields(String name, Collection<?> fields) {
+        touch(name);
+        byte[] rawName = rawKey(name);
+        return multiGet(new ArrayList<>(fields), field -> field, redisTemplate.getHashValueSerializer(),
+                (connection, chunk) -> connection.hMGet(rawName, chunk.stream().map(this::rawHashKey).toArray(byte[][]::new)));
+    }
+
+    /**
+     * 每batchSize个命令通过一次pipeline发送，每个命令的返回值或异常对应一项结果
+     */
+    private <I> BatchResult<Object> pipelined(List<I> items, Function<I, Object> keyOf,
+                                              BiConsumer<RedisConnection, I> command) {
+        BatchResult<Object> result = new BatchResult<>(items.size());
+        for (int from = 0; from < items.size(); from += batchSize) {
+            List<I> batch = items.subList(from, Math.min(items.size(), from + batchSize));
+            List<Object> replies;
+            try {
+                replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    batch.forEach(item -> command.accept(connection, item));
+                    return null;
+                });
+            } catch (RedisPipelineException e) {
+                replies = e.getPipelineResult();
+            } catch (Exception e) {
+                log.warn("pipeline执行失败，{}条命令", batch.size(), e);
+                error("pipelined");
+                batch.forEach(item -> result.fail(keyOf.apply(item), e));
+                continue;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Object reply = i < replies.size() ? replies.get(i) : null;
+                if (reply instanceof Throwable) {
+                    error("pipelined");
+                    result.fail(keyOf.apply(batch.get(i)), (Throwable) reply);
+                } else {
+                    result.succeed(keyOf.apply(batch.get(i)), reply);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 每MULTI_GET_SIZE个key一条命令，每batchSize个key通过一次pipeline发送
+     */
+    private <I> BatchResult<Object> multiGet(List<I> items, Function<I, Object> keyOf, RedisSerializer<?> serializer,
+                                             BiConsumer<RedisConnection, List<I>> command) {
+        BatchResult<Object> result = new BatchResult<>(items.size());
+        for (int from = 0; from < items.size(); from += batchSize) {
+            List<I> batch = items.subList(from, Math.min(items.size(), from + batchSize));
+            List<Object> replies;
+            try {
+                replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (int i = 0; i < batch.size(); i += MULTI_GET_SIZE) {
+                        command.accept(connection, batch.subList(i, Math.min(batch.size(), i + MULTI_GET_SIZE)));
+                    }
+                    return null;
+                }, serializer);
+            } catch (RedisPipelineException e) {
+                replies = e.getPipelineResult();
+            } catch (Exception e) {
+                log.warn("pipeline执行失败，{}个key", batch.size(), e);
+                error("multiGet");
+                batch.forEach(item -> result.fail(keyOf.apply(item), e));
+                continue;
+            }
+            for (int i = 0; i < batch.size(); i += MULTI_GET_SIZE) {
+                List<I> chunk = batch.subList(i, Math.min(batch.size(), i + MULTI_GET_SIZE));
+                int index = i / MULTI_GET_SIZE;
+                Object reply = index < replies.size() ? replies.get(index) : null;
+                for (int j = 0; j < chunk.size(); j++) {
+                    if (reply instanceof Throwable) {
+                        error("multiGet");
+                        result.fail(keyOf.apply(chunk.get(j)), (Throwable) reply);
+                    } else {
+                        List<?> values = (List<?>) reply;
+                        result.succeed(keyOf.apply(chunk.get(j)), values == null ? null : values.get(j));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private void error(String operation, String name, Exception e) {
+        log.error("{}执行失败，key:{}", operation, name, e);
+        error(operation);
+    }
+
+    private void error(String operation) {
+        if (metricsRegistry != null) {
+            metricsRegistry.operation("ting_redis_utils", "operation", operation).recordError();
+        }
+    }
+
+    private void touch(String name) {
+        if (hotKeyDetector != null) {
+            hotKeyDetector.record(name);
+        }
+    }
+
+    private void touch(Collection<String> names) {
+        if (hotKeyDetector != null) {
+            names.forEach(hotKeyDetector::record);
+        }
+    }
+
+    private void invalidate(String name) {
+        if (nearCache != null) {
+            nearCache.invalidate(Collections.singleton(name));
+        }
+    }
+
+    private void invalidate(Collection<String> names) {
+        if (nearCache != null) {
+            nearCache.invalidate(names);
+        }
+    }
+
+    private <T> T invalidate(Collection<String> names, T result) {
+        invalidate(names);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String name) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashKey(Object field) {
+        return ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(field);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashValue(Object value) {
+        return ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(value);
+    }
+
+    /**
+     * 删除，使用UNLINK在后台释放内存
+     *
+     * @param name
+     * @return 全部key都存在并被删除时返回true
      */
     public boolean delete(String... name) {
         Assert.notEmpty(name, "数据不能为空");
         Set<String> collect = Arrays.stream(name).collect(Collectors.toSet());
-        Long aLong = redisTemplate.delete(collect);
+        touch(collect);
+        Long aLong = redisTemplate.unlink(collect);
+        invalidate(collect);
 
-        if (!ObjectUtils.isEmpty(aLong) || aLong == collect.size()) {
-            return true;
-        }
-        return false;
+        return aLong != null && aLong == collect.size();
     }
 
 }
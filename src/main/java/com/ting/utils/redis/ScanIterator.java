@@ -0,0 +1,73 @@
+package com.ting.utils.redis;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * 基于SCAN的key迭代器，每次只在本地保留一批SCAN结果；使用完后必须关闭以释放连接
+ * <p>
+ * key先按RedisTemplate的key序列化解码，解码失败时（例如JDK序列化的template遇到setEX、setNX写入的UTF-8 key）按UTF-8解码
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class ScanIterator implements Iterator<String>, Closeable {
+
+    private final Cursor<byte[]> cursor;
+
+    private final RedisSerializer<?> keySerializer;
+
+    ScanIterator(Cursor<byte[]> cursor, RedisSerializer<?> keySerializer) {
+        this.cursor = cursor;
+        this.keySerializer = keySerializer;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    public String next() {
+        return decode(keySerializer, cursor.next());
+    }
+
+    /**
+     * 解码SCAN出的key
+     *
+     * @param keySerializer RedisTemplate的key序列化
+     * @param key           redis中实际存储的key
+     * @return 按key序列化解码的字符串，解码失败或结果不是字符串时按UTF-8解码
+     */
+    static String decode(RedisSerializer<?> keySerializer, byte[] key) {
+        if (keySerializer != null) {
+            try {
+                Object decoded = keySerializer.deserialize(key);
+                if (decoded instanceof String) {
+                    return (String) decoded;
+                }
+            } catch (SerializationException e) {
+                // 不是按key序列化写入的
+            }
+        }
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return 已经遍历到的位置，可以用于记录进度
+     */
+    public long getCursorId() {
+        return cursor.getCursorId();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
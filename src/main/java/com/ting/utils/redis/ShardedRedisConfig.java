@@ -0,0 +1,59 @@
+package com.ting.utils.redis;
+
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.util.Assert;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 分片redis配置，ting.redis.sharded.enabled=true时生效
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(ShardedRedisProperties.class)
+@ConditionalOnProperty(prefix = "ting.redis.sharded", name = "enabled", havingValue = "true")
+public class ShardedRedisConfig {
+
+    /**
+     * 每个分片沿用redisUtils的序列化、近端缓存、热点key统计和指标；
+     * 开启指标时分片连接也使用记录命令耗时的ClientResources
+     */
+    @Bean
+    public ShardedRedisUtils shardedRedisUtils(ShardedRedisProperties properties, RedisUtils redisUtils,
+                                               ObjectProvider<ClientResources> clientResources) {
+        Assert.notEmpty(properties.getNodes(), "分片节点不能为空");
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder = LettuceClientConfiguration.builder();
+        ClientResources resources = clientResources.getIfAvailable();
+        if (resources != null) {
+            builder.clientResources(resources);
+        }
+        LettuceClientConfiguration clientConfiguration = builder.build();
+        Map<String, RedisConnectionFactory> factories = new LinkedHashMap<>();
+        for (String node : properties.getNodes()) {
+            int index = node.lastIndexOf(':');
+            Assert.isTrue(index > 0, "分片节点格式为 host:port");
+            RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                    node.substring(0, index), Integer.parseInt(node.substring(index + 1)));
+            configuration.setDatabase(properties.getDatabase());
+            configuration.setPassword(RedisPassword.of(properties.getPassword()));
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration, clientConfiguration);
+            factory.afterPropertiesSet();
+            factories.put(node, factory);
+        }
+        return new ShardedRedisUtils(factories, redisUtils, properties.getVirtualNodes());
+    }
+}
@@ -0,0 +1,38 @@
+package com.ting.utils.redis;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分片redis配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.redis.sharded")
+public class ShardedRedisProperties {
+
+    /**
+     * 是否开启分片
+     */
+    private boolean enabled;
+
+    /**
+     * 分片节点，格式为 host:port
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    private String password;
+
+    private int database;
+
+    /**
+     * hash环中每个分片的虚拟节点数量
+     */
+    private int virtualNodes = 160;
+}
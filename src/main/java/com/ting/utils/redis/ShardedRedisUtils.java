@@ -0,0 +1,254 @@
+package com.ting.utils.redis;
+
+import com.ting.utils.hash.ConformityHash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 分片redis工具类
+ * <p>
+ * 持有多个redis实例，使用{@link ConformityHash}将每个key路由到固定的分片上；
+ * 单key操作直接委托给对应分片的{@link RedisUtils}，多key操作按分片拆分后并行执行
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class ShardedRedisUtils implements DisposableBean {
+
+    private final Map<String, RedisConnectionFactory> factories;
+
+    private final Map<String, RedisTemplate<String, Object>> templates = new LinkedHashMap<>();
+
+    private final Map<String, RedisUtils> shards = new LinkedHashMap<>();
+
+    private final Map<String, StringRedisTemplate> stringTemplates = new LinkedHashMap<>();
+
+    /**
+     * 只包含支持响应式连接的分片
+     */
+    private final Map<String, ReactiveStringRedisTemplate> reactiveStringTemplates = new LinkedHashMap<>();
+
+    private final ConformityHash conformityHash;
+
+    /**
+     * 多key操作并行执行的线程池，没有空闲线程时由提交任务的线程自己执行，
+     * scan的回调中再调用delete等多key操作时不会因为等待同一个线程池而死锁
+     */
+    private final ExecutorService executor;
+
+    /**
+     * @param factories    key:分片名称；value:分片的连接工厂
+     * @param prototype    已配置好的redis工具类，每个分片沿用它的序列化、近端缓存、热点key统计和指标
+     * @param virtualNodes 每个分片的虚拟节点数量
+     */
+    public ShardedRedisUtils(Map<String, RedisConnectionFactory> factories, RedisUtils prototype, int virtualNodes) {
+        this(factories, shards(factories, prototype), stringTemplates(factories), virtualNodes);
+    }
+
+    /**
+     * @param factories       key:分片名称；value:分片的连接工厂，用于创建响应式连接和关闭
+     * @param shards          key:分片名称；value:分片的redis工具类
+     * @param stringTemplates key:分片名称；value:分片的StringRedisTemplate
+     * @param virtualNodes    每个分片的虚拟节点数量
+     */
+    ShardedRedisUtils(Map<String, RedisConnectionFactory> factories,
+                      Map<String, RedisUtils> shards,
+                      Map<String, StringRedisTemplate> stringTemplates,
+                      int virtualNodes) {
+        Assert.notEmpty(shards, "分片不能为空");
+        this.factories = new LinkedHashMap<>(factories);
+        this.shards.putAll(shards);
+        this.stringTemplates.putAll(stringTemplates);
+        factories.forEach((name, factory) -> {
+            if (factory instanceof ReactiveRedisConnectionFactory) {
+                reactiveStringTemplates.put(name, new ReactiveStringRedisTemplate((ReactiveRedisConnectionFactory) factory));
+            }
+        });
+        shards.forEach((name, shard) -> templates.put(name, shard.getRedisTemplate()));
+        this.conformityHash = new ConformityHash(shards.keySet(), virtualNodes);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(shards.size(), shards.size(), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sharded-redis-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> runnable.run());
+    }
+
+    private static Map<String, RedisUtils> shards(Map<String, RedisConnectionFactory> factories, RedisUtils prototype) {
+        Assert.notNull(prototype, "redis工具类不能为空");
+        Map<String, RedisUtils> shards = new LinkedHashMap<>();
+        factories.forEach((name, factory) -> shards.put(name, prototype.forConnectionFactory(factory)));
+        return shards;
+    }
+
+    private static Map<String, StringRedisTemplate> stringTemplates(Map<String, RedisConnectionFactory> factories) {
+        Map<String, StringRedisTemplate> templates = new LinkedHashMap<>();
+        factories.forEach((name, factory) -> templates.put(name, new StringRedisTemplate(factory)));
+        return templates;
+    }
+
+    /**
+     * 获取key所在的分片
+     *
+     * @param name key
+     * @return 分片的redis工具类
+     */
+    public RedisUtils shard(String name) {
+        return shards.get(conformityHash.getAddr(name));
+    }
+
+    /**
+     * 获取key所在分片的StringRedisTemplate
+     *
+     * @param name key
+     * @return 分片的StringRedisTemplate
+     */
+    public StringRedisTemplate stringTemplate(String name) {
+        return stringTemplates.get(conformityHash.getAddr(name));
+    }
+
+    /**
+     * 获取key所在分片的ReactiveStringRedisTemplate
+     *
+     * @param name key
+     * @return 分片的ReactiveStringRedisTemplate
+     */
+    public ReactiveStringRedisTemplate reactiveStringTemplate(String name) {
+        String shard = conformityHash.getAddr(name);
+        ReactiveStringRedisTemplate template = reactiveStringTemplates.get(shard);
+        Assert.state(template != null, () -> "分片" + shard + "不支持响应式连接");
+        return template;
+    }
+
+    /**
+     * 获取key所在分片的名称
+     *
+     * @param name key
+     * @return 分片名称
+     */
+    public String shardName(String name) {
+        return conformityHash.getAddr(name);
+    }
+
+    public <K, V> boolean setValueByMap(String name, Map<K, V> map) {
+        return shard(name).setValueByMap(name, map);
+    }
+
+    public boolean updateValueByField(String name, Object field, Object value) {
+        return shard(name).updateValueByField(name, field, value);
+    }
+
+    public boolean setValueByField(String name, Object field, Object value) {
+        return shard(name).setValueByField(name, field, value);
+    }
+
+    public <T> boolean setValue(String name, T t) {
+        return shard(name).setValue(name, t);
+    }
+
+    public <T> boolean setLeftAllList(String name, List<T> list) {
+        return shard(name).setLeftAllList(name, list);
+    }
+
+    public <T> boolean setRightAllList(String name, List<T> list) {
+        return shard(name).setRightAllList(name, list);
+    }
+
+    public boolean setEX(String name, String value, long time) {
+        return shard(name).setEX(name, value, time);
+    }
+
+    public boolean setNX(String name, String value) {
+        return shard(name).setNX(name, value);
+    }
+
+    /**
+     * 删除，按分片拆分后并行执行，与{@link RedisUtils#delete(String...)}一样使用UNLINK
+     *
+     * @param name key
+     * @return 所有key都删除成功时返回true
+     */
+    public boolean delete(String... name) {
+        Assert.notEmpty(name, "数据不能为空");
+        Set<String> keys = new LinkedHashSet<>(Arrays.asList(name));
+        Map<String, List<String>> groups = conformityHash.groupByNode(keys);
+        List<CompletableFuture<Long>> futures = new ArrayList<>(groups.size());
+        groups.forEach((shard, list) -> futures.add(CompletableFuture.supplyAsync(() -> {
+            Long deleted = templates.get(shard).unlink(list);
+            return deleted == null ? 0L : deleted;
+        }, executor)));
+        long deleted = 0;
+        for (CompletableFuture<Long> future : futures) {
+            deleted += future.join();
+        }
+        return deleted == keys.size();
+    }
+
+    /**
+     * 在所有分片上并行使用SCAN遍历key
+     *
+     * @param pattern   匹配规则
+     * @param count     每次SCAN的COUNT
+     * @param batchSize 每批回调的key数量
+     * @param consumer  每批key的处理方法，会被多个线程同时调用，可以在其中调用delete
+     * @return 遍历到的key数量
+     * @see RedisUtils#scan(String, long, int, Consumer)
+     */
+    public long scan(String pattern, long count, int batchSize, Consumer<List<String>> consumer) {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(shards.size());
+        shards.values().forEach(shard -> futures.add(CompletableFuture.supplyAsync(
+                () -> shard.scan(pattern, count, batchSize, consumer), executor)));
+        long total = 0;
+        for (CompletableFuture<Long> future : futures) {
+            total += future.join();
+        }
+        return total;
+    }
+
+    /**
+     * 所有分片的名称
+     *
+     * @return 分片名称
+     */
+    public List<String> getShards() {
+        return conformityHash.getNodes();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        factories.values().forEach(factory -> {
+            if (factory instanceof DisposableBean) {
+                try {
+                    ((DisposableBean) factory).destroy();
+                } catch (Exception e) {
+                    log.error("关闭redis分片连接失败", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,529 @@
+package com.ting.utils.redis.codec;
+
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 不依赖schema的紧凑二进制编码
+ * <p>
+ * 每个值以1字节的类型标记开头，整数使用zigzag varint；对象第一次出现时写入类名和字段名，
+ * 同一个值中再次出现相同的类时只写入下标，之后按字段顺序写入字段值；重复出现的字符串同样只写入下标。
+ * <p>
+ * 支持基本类型及其包装类、String、byte[]、BigDecimal、BigInteger、Date、枚举、List、Set、Map
+ * 以及有无参构造方法的普通类；不支持循环引用，List、Set、Map解码后分别为ArrayList、LinkedHashSet、LinkedHashMap。
+ * 枚举和普通类只有在允许的包下才能编码和解码，编码时即检查，避免写入redis后才发现无法读取
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class BinaryValueCodec implements ValueCodec {
+
+    public static final int ID = 2;
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int DOUBLE = 5;
+    private static final int FLOAT = 6;
+    private static final int STRING = 7;
+    private static final int BYTES = 8;
+    private static final int BIG_DECIMAL = 9;
+    private static final int BIG_INTEGER = 10;
+    private static final int DATE = 11;
+    private static final int LIST = 12;
+    private static final int SET = 13;
+    private static final int MAP = 14;
+    private static final int OBJECT_DEFINITION = 15;
+    private static final int OBJECT_REFERENCE = 16;
+    private static final int SHORT = 17;
+    private static final int BYTE = 18;
+    private static final int CHAR = 19;
+    private static final int ENUM = 20;
+    private static final int STRING_REFERENCE = 21;
+
+    private final List<String> acceptPackages;
+
+    /**
+     * 每个类需要编码的字段
+     */
+    private final Map<Class<?>, Field[]> fieldCache = new ConcurrentHashMap<>();
+
+    /**
+     * @param acceptPackages 允许解码的包前缀
+     */
+    public BinaryValueCodec(Collection<String> acceptPackages) {
+        this.acceptPackages = new ArrayList<>(acceptPackages);
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        Writer writer = new Writer();
+        write(writer, value, 0);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        Object value = read(reader, 0);
+        if (reader.position != bytes.length) {
+            throw new SerializationException("二进制编码的值后有多余的数据");
+        }
+        return value;
+    }
+
+    private void write(Writer writer, Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new SerializationException("嵌套层数超过" + MAX_DEPTH + "，可能存在循环引用");
+        }
+        if (value == null) {
+            writer.write(NULL);
+        } else if (value instanceof String) {
+            Integer index = writer.strings.putIfAbsent((String) value, writer.strings.size());
+            if (index == null) {
+                writer.write(STRING);
+                writer.writeString((String) value);
+            } else {
+                writer.write(STRING_REFERENCE);
+                writer.writeVarint(index);
+            }
+        } else if (value instanceof Integer) {
+            writer.write(INT);
+            writer.writeSignedVarint((Integer) value);
+        } else if (value instanceof Long) {
+            writer.write(LONG);
+            writer.writeSignedVarint((Long) value);
+        } else if (value instanceof Boolean) {
+            writer.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Double) {
+            writer.write(DOUBLE);
+            writer.writeFixed(Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            writer.write(FLOAT);
+            writer.writeFixed(Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof Short) {
+            writer.write(SHORT);
+            writer.writeSignedVarint((Short) value);
+        } else if (value instanceof Byte) {
+            writer.write(BYTE);
+            writer.write((Byte) value);
+        } else if (value instanceof Character) {
+            writer.write(CHAR);
+            writer.writeVarint((Character) value);
+        } else if (value instanceof byte[]) {
+            writer.write(BYTES);
+            writer.writeBytes((byte[]) value);
+        } else if (value instanceof BigDecimal) {
+            writer.write(BIG_DECIMAL);
+            writer.writeSignedVarint(((BigDecimal) value).scale());
+            writer.writeBytes(((BigDecimal) value).unscaledValue().toByteArray());
+        } else if (value instanceof BigInteger) {
+            writer.write(BIG_INTEGER);
+            writer.writeBytes(((BigInteger) value).toByteArray());
+        } else if (value instanceof Date) {
+            writer.write(DATE);
+            writer.writeSignedVarint(((Date) value).getTime());
+        } else if (value instanceof Enum) {
+            writer.write(ENUM);
+            writer.writeString(checkEncode(((Enum<?>) value).getDeclaringClass()).getName());
+            writer.writeString(((Enum<?>) value).name());
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            writer.write(value instanceof Set ? SET : LIST);
+            writer.writeVarint(collection.size());
+            for (Object item : collection) {
+                write(writer, item, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writer.write(MAP);
+            writer.writeVarint(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(writer, entry.getKey(), depth + 1);
+                write(writer, entry.getValue(), depth + 1);
+            }
+        } else if (value.getClass().isArray()) {
+            throw new SerializationException("不支持的数组类型：" + value.getClass().getName());
+        } else {
+            writeObject(writer, value, depth);
+        }
+    }
+
+    private void writeObject(Writer writer, Object value, int depth) {
+        Class<?> type = value.getClass();
+        Integer index = writer.classes.get(type);
+        if (index == null) {
+            checkEncode(type);
+        }
+        Field[] fields = fields(type);
+        if (index == null) {
+            writer.classes.put(type, writer.classes.size());
+            writer.write(OBJECT_DEFINITION);
+            writer.writeString(type.getName());
+            writer.writeVarint(fields.length);
+            for (Field field : fields) {
+                writer.writeString(field.getName());
+            }
+        } else {
+            writer.write(OBJECT_REFERENCE);
+            writer.writeVarint(index);
+        }
+        try {
+            for (Field field : fields) {
+                write(writer, field.get(value), depth + 1);
+            }
+        } catch (IllegalAccessException e) {
+            throw new SerializationException("读取字段失败：" + type.getName(), e);
+        }
+    }
+
+    private Object read(Reader reader, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new SerializationException("嵌套层数超过" + MAX_DEPTH);
+        }
+        int tag = reader.read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INT:
+                return (int) reader.readSignedVarint();
+            case LONG:
+                return reader.readSignedVarint();
+            case DOUBLE:
+                return Double.longBitsToDouble(reader.readFixed(8));
+            case FLOAT:
+                return Float.intBitsToFloat((int) reader.readFixed(4));
+            case SHORT:
+                return (short) reader.readSignedVarint();
+            case BYTE:
+                return (byte) reader.read();
+            case CHAR:
+                return (char) reader.readVarint();
+            case STRING: {
+                String value = reader.readString();
+                reader.strings.add(value);
+                return value;
+            }
+            case STRING_REFERENCE: {
+                long index = reader.readVarint();
+                if (index >= reader.strings.size()) {
+                    throw new SerializationException("字符串的下标不存在：" + index);
+                }
+                return reader.strings.get((int) index);
+            }
+            case BYTES:
+                return reader.readBytes();
+            case BIG_DECIMAL: {
+                int scale = (int) reader.readSignedVarint();
+                return new BigDecimal(new BigInteger(reader.readBytes()), scale);
+            }
+            case BIG_INTEGER:
+                return new BigInteger(reader.readBytes());
+            case DATE:
+                return new Date(reader.readSignedVarint());
+            case ENUM:
+                return readEnum(reader);
+            case LIST:
+            case SET: {
+                int size = reader.readSize();
+                Collection<Object> collection = tag == LIST ? new ArrayList<>(size) : new LinkedHashSet<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    collection.add(read(reader, depth + 1));
+                }
+                return collection;
+            }
+            case MAP: {
+                int size = reader.readSize();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+                for (int i = 0; i < size; i++) {
+                    map.put(read(reader, depth + 1), read(reader, depth + 1));
+                }
+                return map;
+            }
+            case OBJECT_DEFINITION:
+                return readObject(reader, readDefinition(reader), depth);
+            case OBJECT_REFERENCE: {
+                long index = reader.readVarint();
+                if (index >= reader.definitions.size()) {
+                    throw new SerializationException("类的下标不存在：" + index);
+                }
+                return readObject(reader, reader.definitions.get((int) index), depth);
+            }
+            default:
+                throw new SerializationException("未知的类型标记：" + tag);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum(Reader reader) {
+        Class<?> type = accept(reader.readString());
+        if (!type.isEnum()) {
+            throw new SerializationException("不是枚举：" + type.getName());
+        }
+        return Enum.valueOf((Class<Enum>) type, reader.readString());
+    }
+
+    private Definition readDefinition(Reader reader) {
+        Class<?> type = accept(reader.readString());
+        Map<String, Field> byName = new HashMap<>();
+        for (Field field : fields(type)) {
+            byName.put(field.getName(), field);
+        }
+        // 编码时有、当前类中已经没有的字段为null，解码时跳过
+        Field[] fields = new Field[reader.readSize()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = byName.get(reader.readString());
+        }
+        Definition definition = new Definition(type, fields);
+        reader.definitions.add(definition);
+        return definition;
+    }
+
+    private Object readObject(Reader reader, Definition definition, int depth) {
+        try {
+            Object value = definition.constructor.newInstance();
+            for (Field field : definition.fields) {
+                Object fieldValue = read(reader, depth + 1);
+                if (field != null && (fieldValue != null || !field.getType().isPrimitive())) {
+                    field.set(value, fieldValue);
+                }
+            }
+            return value;
+        } catch (ReflectiveOperationException | IllegalArgumentException e) {
+            throw new SerializationException("创建对象失败：" + definition.type.getName(), e);
+        }
+    }
+
+    private Class<?> checkEncode(Class<?> type) {
+        if (!isAccepted(type.getName())) {
+            throw new SerializationException("不允许编码的类：" + type.getName() + "，解码时同样不允许，需要加入accept-packages");
+        }
+        return type;
+    }
+
+    private Class<?> accept(String className) {
+        if (!isAccepted(className)) {
+            throw new SerializationException("不允许解码的类：" + className);
+        }
+        try {
+            return Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new SerializationException("类不存在：" + className, e);
+        }
+    }
+
+    private boolean isAccepted(String className) {
+        for (String prefix : acceptPackages) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Field[] fields(Class<?> type) {
+        return fieldCache.computeIfAbsent(type, key -> {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = key; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            return fields.toArray(new Field[0]);
+        });
+    }
+
+    /**
+     * 解码时的类信息
+     */
+    private static final class Definition {
+
+        private final Class<?> type;
+
+        private final Field[] fields;
+
+        private final Constructor<?> constructor;
+
+        private Definition(Class<?> type, Field[] fields) {
+            this.type = type;
+            this.fields = fields;
+            try {
+                this.constructor = type.getDeclaredConstructor();
+                this.constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                throw new SerializationException("没有无参构造方法：" + type.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 非同步的字节缓冲
+     */
+    private static final class Writer {
+
+        /**
+         * 已写入定义的类及其下标
+         */
+        private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+        /**
+         * 已写入的字符串及其下标
+         */
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        private byte[] buffer = new byte[64];
+
+        private int size;
+
+        private void ensure(int length) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+            }
+        }
+
+        private void write(int value) {
+            ensure(1);
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeSignedVarint(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private void writeFixed(long value, int length) {
+            ensure(length);
+            for (int i = 0; i < length; i++) {
+                buffer[size++] = (byte) (value >>> (i * 8));
+            }
+        }
+
+        private void writeBytes(byte[] bytes) {
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        private void writeString(String value) {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        private final List<Definition> definitions = new ArrayList<>();
+
+        private final List<String> strings = new ArrayList<>();
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int read() {
+            if (position >= bytes.length) {
+                throw new SerializationException("二进制编码的值不完整");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = read();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("varint过长");
+        }
+
+        private long readSignedVarint() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private int readSize() {
+            long size = readVarint();
+            if (size > bytes.length - position) {
+                throw new SerializationException("长度超出数据范围：" + size);
+            }
+            return (int) size;
+        }
+
+        private long readFixed(int length) {
+            long value = 0;
+            for (int i = 0; i < length; i++) {
+                value |= (long) read() << (i * 8);
+            }
+            return value;
+        }
+
+        private byte[] readBytes() {
+            int length = readSize();
+            byte[] value = new byte[length];
+            System.arraycopy(bytes, position, value, 0, length);
+            position += length;
+            return value;
+        }
+
+        private String readString() {
+            int length = readSize();
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
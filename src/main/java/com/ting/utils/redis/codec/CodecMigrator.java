@@ -0,0 +1,107 @@
+package com.ting.utils.redis.codec;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 把JDK序列化的String值迁移为当前编码
+ * <p>
+ * 通过SCAN遍历key，只迁移0xACED开头的JDK序列化值，按旧格式读取后重新编码，用lua脚本比较旧值后写入并保留过期时间，
+ * 迁移期间被业务修改过的key会跳过。直接写入的UTF-8字符串（锁的持有者标识、setEX和setNX的值、INCR的计数）
+ * 被其他代码按原始字节读写，保持原样；hash等其他类型不迁移，读取时仍然兼容旧格式
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class CodecMigrator {
+
+    private static final byte[] COMPARE_AND_SET = ("if redis.call('GET', KEYS[1]) == ARGV[1] then "
+            + "local ttl = redis.call('PTTL', KEYS[1]) "
+            + "if ttl > 0 then redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl) else redis.call('SET', KEYS[1], ARGV[2]) end "
+            + "return 1 end return 0").getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<?, ?> redisTemplate;
+
+    private final CodecRedisSerializer serializer;
+
+    public CodecMigrator(RedisTemplate<?, ?> redisTemplate, CodecRedisSerializer serializer) {
+        this.redisTemplate = redisTemplate;
+        this.serializer = serializer;
+    }
+
+    /**
+     * 迁移
+     *
+     * @param pattern 匹配规则，与redis中实际存储的key进行匹配
+     * @param count   每次SCAN的COUNT
+     * @return 迁移结果
+     */
+    public Result migrate(String pattern, long count) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        Result result = new Result();
+        try (Cursor<byte[]> cursor = redisTemplate.executeWithStickyConnection(connection -> connection.scan(options))) {
+            while (cursor.hasNext()) {
+                byte[] key = cursor.next();
+                result.scanned++;
+                try {
+                    if (migrate(key)) {
+                        result.migrated++;
+                    } else {
+                        result.skipped++;
+                    }
+                } catch (Exception e) {
+                    result.failed++;
+                    log.warn("迁移失败：{}", new String(key, StandardCharsets.UTF_8), e);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean migrate(byte[] key) {
+        return Boolean.TRUE.equals(redisTemplate.execute(connection -> {
+            if (connection.type(key) != DataType.STRING) {
+                return false;
+            }
+            byte[] old = connection.get(key);
+            if (!CodecRedisSerializer.isLegacy(old)) {
+                return false;
+            }
+            byte[] value = serializer.serialize(serializer.deserialize(old));
+            Long updated = connection.eval(COMPARE_AND_SET, ReturnType.INTEGER, 1, key, old, value);
+            return updated != null && updated == 1;
+        }, true));
+    }
+
+    /**
+     * 迁移结果
+     */
+    @Getter
+    @ToString
+    public static class Result {
+
+        private long scanned;
+
+        /**
+         * 重新编码的数量
+         */
+        private long migrated;
+
+        /**
+         * 不是String、不是JDK序列化的值或迁移期间被修改的数量
+         */
+        private long skipped;
+
+        private long failed;
+    }
+}
@@ -0,0 +1,291 @@
+package com.ting.utils.redis.codec;
+
+import com.ting.utils.dto.ParamDto;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.util.Assert;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 可切换编码的值序列化
+ * <p>
+ * 写入的值以3字节开头：标记0xC5、格式版本、编码标识（最高位为1时表示压缩过），之后是编码后的数据；
+ * 超过压缩阈值且压缩后更小时使用deflate压缩。读取时按头部选择编码，所以切换编码后旧的值仍然可以读取；
+ * 没有头部的值按旧的格式读取：0xACED开头的按JDK序列化，其他的按UTF-8字符串（setEX、setNX写入的值）；
+ * JDK反序列化只允许acceptPackages下的类和java.lang、java.util、java.math、java.time中的基础类型，避免反序列化任意类
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class CodecRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MARKER = (byte) 0xC5;
+
+    static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final int COMPRESSED = 0x80;
+
+    private final ValueCodec codec;
+
+    private final Map<Integer, ValueCodec> codecs = new HashMap<>();
+
+    /**
+     * 编码后超过该字节数时压缩，小于等于0时不压缩
+     */
+    private final int compressThreshold;
+
+    /**
+     * JDK反序列化允许的包前缀
+     */
+    private final List<String> acceptPackages;
+
+    /**
+     * @param codec             写入使用的编码
+     * @param readable          读取时支持的所有编码
+     * @param acceptPackages    旧的JDK序列化的值允许反序列化的包前缀
+     * @param compressThreshold 编码后超过该字节数时压缩，小于等于0时不压缩
+     */
+    public CodecRedisSerializer(ValueCodec codec, List<ValueCodec> readable, Collection<String> acceptPackages,
+                                int compressThreshold) {
+        for (ValueCodec item : readable) {
+            Assert.isTrue(item.id() > 0 && item.id() < COMPRESSED, "编码标识必须在1~127之间");
+            Assert.isNull(codecs.put(item.id(), item), "编码标识重复：" + item.id());
+        }
+        codecs.putIfAbsent(codec.id(), codec);
+        this.codec = codec;
+        this.acceptPackages = new ArrayList<>(acceptPackages);
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] payload = codec.encode(value);
+        int flag = codec.id();
+        if (compressThreshold > 0 && payload.length > compressThreshold) {
+            byte[] compressed = deflate(payload);
+            if (compressed.length < payload.length) {
+                payload = compressed;
+                flag |= COMPRESSED;
+            }
+        }
+        byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+        bytes[0] = MARKER;
+        bytes[1] = VERSION;
+        bytes[2] = (byte) flag;
+        System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+        return bytes;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (isCurrent(bytes)) {
+            int flag = bytes[2] & 0xFF;
+            ValueCodec valueCodec = codecs.get(flag & ~COMPRESSED);
+            if (valueCodec == null) {
+                throw new SerializationException("未知的编码标识：" + (flag & ~COMPRESSED));
+            }
+            byte[] payload = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+            return valueCodec.decode((flag & COMPRESSED) == 0 ? payload : inflate(payload));
+        }
+        if (isLegacy(bytes)) {
+            try (ObjectInputStream in = new AcceptingObjectInputStream(new ByteArrayInputStream(bytes), acceptPackages)) {
+                return in.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new SerializationException("JDK反序列化失败", e);
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param bytes redis中的值
+     * @return 是否为当前格式写入的值，否则需要迁移
+     */
+    public static boolean isCurrent(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MARKER && bytes[1] == VERSION;
+    }
+
+    /**
+     * @param bytes redis中的值
+     * @return 是否为旧的JDK序列化写入的值（0xACED开头）
+     */
+    public static boolean isLegacy(byte[] bytes) {
+        return bytes != null && bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
+    /**
+     * 以ParamDto为例比较JDK序列化、fastjson、二进制编码的大小和耗时
+     */
+    public static void main(String[] args) {
+        List<String> accept = Collections.singletonList("com.ting.");
+        List<ParamDto<String, String>> people = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            people.add(new ParamDto<>("员工" + i, String.valueOf(20 + i), i % 2 == 0 ? "男" : "女"));
+        }
+        Map<String, Object> samples = new LinkedHashMap<>();
+        samples.put("ParamDto", new ParamDto<>("张三", "18", "男"));
+        samples.put("ParamDto<List<ParamDto>>", new ParamDto<>("公司1", people, "第一产业"));
+        List<ParamDto<String, List<ParamDto<String, String>>>> companies = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            companies.add(new ParamDto<>("公司" + i, people, "第" + (i % 3 + 1) + "产业"));
+        }
+        samples.put("List<ParamDto<List<ParamDto>>>", companies);
+
+        Map<String, RedisSerializer<Object>> serializers = new LinkedHashMap<>();
+        serializers.put("jdk", new JdkSerializationRedisSerializer());
+        serializers.put("fastjson", new CodecRedisSerializer(new FastjsonValueCodec(accept), Collections.emptyList(), accept, 0));
+        serializers.put("fastjson+deflate", new CodecRedisSerializer(new FastjsonValueCodec(accept), Collections.emptyList(), accept, 256));
+        serializers.put("binary", new CodecRedisSerializer(new BinaryValueCodec(accept), Collections.emptyList(), accept, 0));
+        serializers.put("binary+deflate", new CodecRedisSerializer(new BinaryValueCodec(accept), Collections.emptyList(), accept, 256));
+
+        samples.forEach((name, sample) -> {
+            System.out.println(name);
+            serializers.forEach((codecName, serializer) -> {
+                int rounds = 20000;
+                byte[] bytes = serializer.serialize(sample);
+                Assert.state(sample.equals(serializer.deserialize(bytes)), codecName + "解码结果不一致");
+                long encode = 0;
+                long decode = 0;
+                for (int round = 0; round < rounds * 2; round++) {
+                    long start = System.nanoTime();
+                    bytes = serializer.serialize(sample);
+                    long middle = System.nanoTime();
+                    serializer.deserialize(bytes);
+                    if (round >= rounds) {
+                        encode += middle - start;
+                        decode += System.nanoTime() - middle;
+                    }
+                }
+                System.out.printf("  %-18s %8d字节 编码%8.2f微秒 解码%8.2f微秒%n", codecName, bytes.length,
+                        encode / 1000.0 / rounds, decode / 1000.0 / rounds);
+            });
+        });
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SerializationException("压缩的数据不完整");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new SerializationException("解压失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 只允许反序列化指定包下的类的ObjectInputStream，Java 8没有ObjectInputFilter，通过resolveClass检查
+     */
+    private static class AcceptingObjectInputStream extends ObjectInputStream {
+
+        /**
+         * 除acceptPackages外允许的包，只包含这些包本身，不包含子包
+         */
+        private static final Set<String> BASIC_PACKAGES = new HashSet<>(Arrays.asList(
+                "java.lang", "java.util", "java.util.concurrent", "java.util.concurrent.atomic", "java.math", "java.time"));
+
+        private final List<String> acceptPackages;
+
+        AcceptingObjectInputStream(InputStream in, List<String> acceptPackages) throws IOException {
+            super(in);
+            this.acceptPackages = acceptPackages;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String className = desc.getName();
+            int dimensions = 0;
+            while (className.charAt(dimensions) == '[') {
+                dimensions++;
+            }
+            if (dimensions > 0) {
+                String element = className.substring(dimensions);
+                if (element.length() == 1) {
+                    // 基本类型的数组
+                    return super.resolveClass(desc);
+                }
+                // 对象数组检查元素的类型，格式为 Lxxx;
+                className = element.substring(1, element.length() - 1);
+            }
+            if (!isAccepted(className)) {
+                throw new InvalidClassException(className, "不允许反序列化的类");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("不允许反序列化动态代理");
+        }
+
+        private boolean isAccepted(String className) {
+            int index = className.lastIndexOf('.');
+            if (index > 0 && BASIC_PACKAGES.contains(className.substring(0, index))) {
+                return true;
+            }
+            for (String prefix : acceptPackages) {
+                if (className.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ting.utils.redis.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * fastjson编码，写入类型信息；只有允许的包下的类才能反序列化为原来的类型
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class FastjsonValueCodec implements ValueCodec {
+
+    public static final int ID = 1;
+
+    private final ParserConfig parserConfig = new ParserConfig();
+
+    /**
+     * @param acceptPackages 允许反序列化的包前缀
+     */
+    public FastjsonValueCodec(Collection<String> acceptPackages) {
+        acceptPackages.forEach(parserConfig::addAccept);
+    }
+
+    @Override
+    public int id() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return JSON.toJSONBytes(value, SerializerFeature.WriteClassName);
+    }
+
+    @Override
+    public Object decode(byte[] bytes) {
+        return JSON.parseObject(new String(bytes, StandardCharsets.UTF_8), Object.class, parserConfig);
+    }
+}
@@ -0,0 +1,51 @@
+package com.ting.utils.redis.codec;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+
+/**
+ * redis值编码配置，ting.redis.codec.enabled=true时生效
+ * <p>
+ * 替换spring boot默认的redisTemplate，只修改value和hash value的序列化，key的序列化保持不变；
+ * 声明为RedisTemplate&lt;String, Object&gt;，按泛型注入的{@link com.ting.utils.redis.RedisUtils}才能使用该编码
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(RedisCodecProperties.class)
+@ConditionalOnProperty(prefix = "ting.redis.codec", name = "enabled", havingValue = "true")
+public class RedisCodecConfig {
+
+    @Bean
+    public CodecRedisSerializer codecRedisSerializer(RedisCodecProperties properties) {
+        ValueCodec binary = new BinaryValueCodec(properties.getAcceptPackages());
+        ValueCodec fastjson = new FastjsonValueCodec(properties.getAcceptPackages());
+        ValueCodec codec = properties.getType() == RedisCodecProperties.Type.FASTJSON ? fastjson : binary;
+        return new CodecRedisSerializer(codec, Arrays.asList(binary, fastjson), properties.getAcceptPackages(),
+                properties.getCompressThreshold());
+    }
+
+    @Bean
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory redisConnectionFactory,
+                                                       CodecRedisSerializer codecRedisSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setValueSerializer(codecRedisSerializer);
+        template.setHashValueSerializer(codecRedisSerializer);
+        return template;
+    }
+
+    @Bean
+    public CodecMigrator codecMigrator(RedisTemplate<String, Object> redisTemplate,
+                                       CodecRedisSerializer codecRedisSerializer) {
+        return new CodecMigrator(redisTemplate, codecRedisSerializer);
+    }
+}
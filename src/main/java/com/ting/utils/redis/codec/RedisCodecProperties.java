@@ -0,0 +1,44 @@
+package com.ting.utils.redis.codec;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * redis值编码配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.redis.codec")
+public class RedisCodecProperties {
+
+    public enum Type {
+        BINARY,
+        FASTJSON
+    }
+
+    /**
+     * 是否开启，未开启时使用默认的JDK序列化
+     */
+    private boolean enabled;
+
+    /**
+     * 写入使用的编码，读取时支持所有编码
+     */
+    private Type type = Type.BINARY;
+
+    /**
+     * 编码后超过该字节数时压缩，小于等于0时不压缩
+     */
+    private int compressThreshold = 1024;
+
+    /**
+     * 允许解码为对象的包前缀
+     */
+    private List<String> acceptPackages = new ArrayList<>();
+}
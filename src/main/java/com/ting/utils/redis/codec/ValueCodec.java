@@ -0,0 +1,22 @@
+package com.ting.utils.redis.codec;
+
+/**
+ * redis值的编码方式
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public interface ValueCodec {
+
+    /**
+     * 写入每个值头部的编码标识，取值为1~127，不能与其他编码重复
+     *
+     * @return 标识
+     */
+    int id();
+
+    byte[] encode(Object value);
+
+    Object decode(byte[] bytes);
+}
@@ -0,0 +1,83 @@
+package com.ting.utils.redis.script;
+
+import lombok.Getter;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 已获得的分布式锁，通过{@link RedisLockManager}获取
+ * <p>
+ * 锁的value是持有者标识，释放和续期都会校验标识，租期过期后被其他人获得的锁不会被误删。
+ * 可以在try-with-resources中使用
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class LeaseLock implements AutoCloseable {
+
+    /**
+     * 锁的key
+     */
+    @Getter
+    private final String name;
+
+    /**
+     * 持有者标识
+     */
+    @Getter
+    private final String token;
+
+    /**
+     * 租期毫秒数
+     */
+    @Getter
+    private final long leaseMillis;
+
+    private final RedisLockManager manager;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    /**
+     * 看门狗续期任务，指定租期时为null
+     */
+    volatile ScheduledFuture<?> watchdog;
+
+    LeaseLock(RedisLockManager manager, String name, String token, long leaseMillis) {
+        this.manager = manager;
+        this.name = name;
+        this.token = token;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * 手动续期一个租期
+     *
+     * @return 仍然持有锁时返回true
+     */
+    public boolean renew() {
+        return !released.get() && manager.renew(this);
+    }
+
+    /**
+     * 释放锁，重复调用只会释放一次
+     *
+     * @return 释放时仍然持有锁返回true，租期已过期返回false
+     */
+    public boolean unlock() {
+        if (!released.compareAndSet(false, true)) {
+            return false;
+        }
+        return manager.unlock(this);
+    }
+
+    public boolean isReleased() {
+        return released.get();
+    }
+
+    @Override
+    public void close() {
+        unlock();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ting.utils.redis.script;
+
+import lombok.Value;
+
+/**
+ * 限流结果
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Value
+public class RateLimitResult {
+
+    /**
+     * 是否通过
+     */
+    boolean allowed;
+
+    /**
+     * 剩余的令牌数或窗口内剩余的次数
+     */
+    long remaining;
+
+    /**
+     * 不通过时至少需要等待的毫秒数，通过时为0
+     */
+    long retryAfterMillis;
+}
@@ -0,0 +1,183 @@
+package com.ting.utils.redis.script;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于租期的分布式锁
+ * <p>
+ * 加锁使用SET key token NX PX，释放和续期使用校验持有者的lua脚本。
+ * 同一个jvm内先进入该key的本地队列再访问redis，同一个key的竞争者在本地排队，只有排在最前面的线程会轮询redis；
+ * 队列按key区分，等待某个key的线程不会挡住其他key，持有锁的线程再获取其他锁时不会排在等待自己的线程后面。
+ * 没有线程使用时队列从map中移除。
+ * 未指定租期时使用默认租期并由看门狗每1/3租期续期，直到释放或续期失败。
+ * 锁不可重入，可以在任意线程释放
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class RedisLockManager implements DisposableBean {
+
+    /**
+     * 首次重试redis的间隔毫秒数，之后每次翻倍直到最大间隔
+     */
+    private static final long MIN_RETRY_INTERVAL = 5;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 每个key的本地队列，没有线程使用时移除
+     */
+    private final ConcurrentHashMap<String, LocalQueue> queues = new ConcurrentHashMap<>();
+
+    private final long defaultLeaseMillis;
+
+    private final long maxRetryInterval;
+
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RedisLockManager(StringRedisTemplate stringRedisTemplate, RedisScriptProperties.Lock properties) {
+        Assert.isTrue(properties.getLeaseTime().toMillis() >= 3, "租期不能小于3毫秒");
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.defaultLeaseMillis = properties.getLeaseTime().toMillis();
+        this.maxRetryInterval = Math.max(MIN_RETRY_INTERVAL, properties.getMaxRetryInterval().toMillis());
+    }
+
+    /**
+     * 获取锁，由看门狗续期
+     *
+     * @param name     锁的key
+     * @param waitTime 最多等待的时间
+     * @param unit     时间单位
+     * @return 超时未获得时返回null
+     * @throws InterruptedException 等待时被中断
+     */
+    public LeaseLock tryLock(String name, long waitTime, TimeUnit unit) throws InterruptedException {
+        LeaseLock lock = acquire(name, unit.toMillis(waitTime), defaultLeaseMillis);
+        if (lock != null) {
+            long period = defaultLeaseMillis / 3;
+            lock.watchdog = watchdog.scheduleAtFixedRate(() -> keepAlive(lock), period, period, TimeUnit.MILLISECONDS);
+        }
+        return lock;
+    }
+
+    /**
+     * 获取锁，租期到期后自动释放
+     *
+     * @param name      锁的key
+     * @param waitTime  最多等待的时间
+     * @param leaseTime 租期
+     * @param unit      时间单位
+     * @return 超时未获得时返回null
+     * @throws InterruptedException 等待时被中断
+     */
+    public LeaseLock tryLock(String name, long waitTime, long leaseTime, TimeUnit unit) throws InterruptedException {
+        Assert.isTrue(leaseTime > 0, "租期必须大于0");
+        return acquire(name, unit.toMillis(waitTime), unit.toMillis(leaseTime));
+    }
+
+    private LeaseLock acquire(String name, long waitMillis, long leaseMillis) throws InterruptedException {
+        Assert.hasText(name, "锁的key不能为空");
+        long deadline = System.currentTimeMillis() + Math.max(0, waitMillis);
+        LocalQueue queue = queues.compute(name, (key, existing) -> {
+            LocalQueue joined = existing == null ? new LocalQueue() : existing;
+            joined.users++;
+            return joined;
+        });
+        try {
+            if (!queue.semaphore.tryAcquire(Math.max(0, waitMillis), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+            try {
+                String token = UUID.randomUUID().toString();
+                long interval = MIN_RETRY_INTERVAL;
+                while (true) {
+                    Boolean set = stringRedisTemplate.opsForValue().setIfAbsent(name, token, leaseMillis, TimeUnit.MILLISECONDS);
+                    if (Boolean.TRUE.equals(set)) {
+                        return new LeaseLock(this, name, token, leaseMillis);
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    // 加随机抖动，避免多个jvm同时重试
+                    Thread.sleep(Math.min(remaining, ThreadLocalRandom.current().nextLong(interval / 2, interval + 1)));
+                    interval = Math.min(maxRetryInterval, interval * 2);
+                }
+            } finally {
+                queue.semaphore.release();
+            }
+        } finally {
+            queues.computeIfPresent(name, (key, existing) -> --existing.users == 0 ? null : existing);
+        }
+    }
+
+    boolean renew(LeaseLock lock) {
+        Long renewed = stringRedisTemplate.execute(RedisScripts.RENEW, Collections.singletonList(lock.getName()),
+                lock.getToken(), String.valueOf(lock.getLeaseMillis()));
+        return renewed != null && renewed == 1;
+    }
+
+    boolean unlock(LeaseLock lock) {
+        ScheduledFuture<?> future = lock.watchdog;
+        if (future != null) {
+            future.cancel(false);
+        }
+        Long deleted = stringRedisTemplate.execute(RedisScripts.UNLOCK, Collections.singletonList(lock.getName()),
+                lock.getToken());
+        return deleted != null && deleted == 1;
+    }
+
+    /**
+     * 看门狗续期，锁已被其他人持有时停止；redis异常时保留任务，下次继续尝试
+     */
+    private void keepAlive(LeaseLock lock) {
+        if (lock.isReleased()) {
+            return;
+        }
+        try {
+            if (!renew(lock)) {
+                log.warn("锁{}已失效，停止续期", lock.getName());
+                ScheduledFuture<?> future = lock.watchdog;
+                if (future != null) {
+                    future.cancel(false);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("锁{}续期失败", lock.getName(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 一个key的本地队列，users只在ConcurrentHashMap.compute中修改
+     */
+    private static class LocalQueue {
+
+        private final Semaphore semaphore = new Semaphore(1, true);
+
+        private int users;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ting.utils.redis.script;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于lua脚本的分布式限流，每次判断只需要一次EVALSHA
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class RedisRateLimiter {
+
+    /**
+     * 滑动窗口中区分不同请求的前缀，同一毫秒内的多次请求也不会互相覆盖
+     */
+    private final String instance = UUID.randomUUID().toString();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 令牌桶，允许桶容量以内的突发，长期速率不超过rate
+     *
+     * @param name     key
+     * @param rate     每秒生成的令牌数
+     * @param capacity 桶容量
+     * @param permits  本次需要的令牌数
+     * @return 限流结果
+     */
+    public RateLimitResult tryAcquire(String name, double rate, long capacity, long permits) {
+        Assert.isTrue(rate > 0, "速率必须大于0");
+        Assert.isTrue(permits > 0 && permits <= capacity, "令牌数必须大于0且不超过桶容量");
+        return toResult(stringRedisTemplate.execute(RedisScripts.TOKEN_BUCKET, Collections.singletonList(name),
+                String.valueOf(rate), String.valueOf(capacity), String.valueOf(permits)));
+    }
+
+    /**
+     * 令牌桶，每次需要1个令牌
+     *
+     * @param name     key
+     * @param rate     每秒生成的令牌数
+     * @param capacity 桶容量
+     * @return 限流结果
+     */
+    public RateLimitResult tryAcquire(String name, double rate, long capacity) {
+        return tryAcquire(name, rate, capacity, 1);
+    }
+
+    /**
+     * 滑动窗口，任意window时长内通过的次数不超过limit
+     *
+     * @param name    key
+     * @param window  窗口时长
+     * @param limit   窗口内允许的次数
+     * @param permits 本次需要的次数
+     * @return 限流结果
+     */
+    public RateLimitResult tryAcquireInWindow(String name, Duration window, long limit, long permits) {
+        Assert.isTrue(window.toMillis() > 0, "窗口必须大于0毫秒");
+        Assert.isTrue(permits > 0 && permits <= limit, "次数必须大于0且不超过窗口限制");
+        String member = instance + ":" + sequence.incrementAndGet();
+        return toResult(stringRedisTemplate.execute(RedisScripts.SLIDING_WINDOW, Collections.singletonList(name),
+                String.valueOf(window.toMillis()), String.valueOf(limit), String.valueOf(permits), member));
+    }
+
+    /**
+     * 滑动窗口，每次需要1次
+     *
+     * @param name   key
+     * @param window 窗口时长
+     * @param limit  窗口内允许的次数
+     * @return 限流结果
+     */
+    public RateLimitResult tryAcquireInWindow(String name, Duration window, long limit) {
+        return tryAcquireInWindow(name, window, limit, 1);
+    }
+
+    private RateLimitResult toResult(List<Long> result) {
+        Assert.notNull(result, "限流脚本没有返回结果");
+        return new RateLimitResult(result.get(0) == 1, result.get(1), result.get(2));
+    }
+}
@@ -0,0 +1,35 @@
+package com.ting.utils.redis.script;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 限流与分布式锁配置，ting.redis.script.enabled=true时生效
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Configuration
+@EnableConfigurationProperties(RedisScriptProperties.class)
+@ConditionalOnProperty(prefix = "ting.redis.script", name = "enabled", havingValue = "true")
+public class RedisScriptConfig {
+
+    @Bean
+    public RedisScripts redisScripts(StringRedisTemplate stringRedisTemplate) {
+        return new RedisScripts(stringRedisTemplate);
+    }
+
+    @Bean
+    public RedisRateLimiter redisRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        return new RedisRateLimiter(stringRedisTemplate);
+    }
+
+    @Bean
+    public RedisLockManager redisLockManager(StringRedisTemplate stringRedisTemplate, RedisScriptProperties properties) {
+        return new RedisLockManager(stringRedisTemplate, properties.getLock());
+    }
+}
@@ -0,0 +1,42 @@
+package com.ting.utils.redis.script;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 限流与分布式锁配置
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "ting.redis.script")
+public class RedisScriptProperties {
+
+    /**
+     * 是否开启
+     */
+    private boolean enabled;
+
+    /**
+     * 分布式锁
+     */
+    private Lock lock = new Lock();
+
+    @Data
+    public static class Lock {
+
+        /**
+         * 未指定租期时的默认租期，看门狗每1/3租期续期一次
+         */
+        private Duration leaseTime = Duration.ofSeconds(30);
+
+        /**
+         * 等待锁时重试redis的最大间隔
+         */
+        private Duration maxRetryInterval = Duration.ofMillis(100);
+    }
+}
@@ -0,0 +1,146 @@
+package com.ting.utils.redis.script;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 限流与分布式锁使用的lua脚本
+ * <p>
+ * 启动时通过SCRIPT LOAD预加载，执行时使用EVALSHA只发送sha1，redis重启等原因丢失脚本时spring会自动退回EVAL。
+ * 时间统一使用redis的TIME，避免各实例时钟不一致，因此脚本开头需要redis.replicate_commands()按命令复制
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+@Slf4j
+public class RedisScripts implements InitializingBean {
+
+    private static final String NOW = "redis.replicate_commands()\n" +
+            "local time = redis.call('TIME')\n" +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)\n";
+
+    /**
+     * 令牌桶
+     * <p>
+     * KEYS[1]：hash，tokens为剩余令牌，timestamp为上次计算的毫秒时间；
+     * ARGV：每秒生成的令牌数、桶容量、本次需要的令牌数；
+     * 返回：是否通过、剩余令牌数、不通过时需要等待的毫秒数
+     */
+    public static final RedisScript<List<Long>> TOKEN_BUCKET = longList(NOW +
+            "local rate = tonumber(ARGV[1])\n" +
+            "local capacity = tonumber(ARGV[2])\n" +
+            "local requested = tonumber(ARGV[3])\n" +
+            "local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp')\n" +
+            "local tokens = tonumber(bucket[1])\n" +
+            "local timestamp = tonumber(bucket[2])\n" +
+            "if tokens == nil or timestamp == nil then\n" +
+            "  tokens = capacity\n" +
+            "elseif now > timestamp then\n" +
+            "  tokens = math.min(capacity, tokens + (now - timestamp) * rate / 1000)\n" +
+            "end\n" +
+            "local allowed = 0\n" +
+            "local retry = 0\n" +
+            "if tokens >= requested then\n" +
+            "  tokens = tokens - requested\n" +
+            "  allowed = 1\n" +
+            "else\n" +
+            "  retry = math.ceil((requested - tokens) * 1000 / rate)\n" +
+            "end\n" +
+            "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'timestamp', math.max(now, timestamp or now))\n" +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)\n" +
+            "return {allowed, math.floor(tokens), retry}");
+
+    /**
+     * 滑动窗口，使用有序集合记录窗口内每次通过的时间
+     * <p>
+     * KEYS[1]：zset；ARGV：窗口毫秒数、窗口内允许的次数、本次需要的次数、本次请求的唯一标识；
+     * 返回：是否通过、窗口内剩余次数、不通过时需要等待的毫秒数
+     */
+    public static final RedisScript<List<Long>> SLIDING_WINDOW = longList(NOW +
+            "local window = tonumber(ARGV[1])\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local requested = tonumber(ARGV[3])\n" +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)\n" +
+            "local count = redis.call('ZCARD', KEYS[1])\n" +
+            "if count + requested <= limit then\n" +
+            "  for i = 1, requested do\n" +
+            "    redis.call('ZADD', KEYS[1], now, ARGV[4] .. ':' .. i)\n" +
+            "  end\n" +
+            "  redis.call('PEXPIRE', KEYS[1], window)\n" +
+            "  return {1, limit - count - requested, 0}\n" +
+            "end\n" +
+            "local index = count + requested - limit - 1\n" +
+            "local oldest = redis.call('ZRANGE', KEYS[1], index, index, 'WITHSCORES')\n" +
+            "return {0, math.max(0, limit - count), math.max(1, tonumber(oldest[2]) + window - now)}");
+
+    /**
+     * 释放锁，只有持有者才能删除
+     * <p>
+     * KEYS[1]：锁；ARGV[1]：持有者标识
+     */
+    public static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('DEL', KEYS[1])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    /**
+     * 续期，只有持有者才能续期
+     * <p>
+     * KEYS[1]：锁；ARGV：持有者标识、租期毫秒数
+     */
+    public static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n" +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2])\n" +
+            "end\n" +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 返回整数数组的脚本，lua的number在redis中转换为整数
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Long>> longList(String script) {
+        Class<List<Long>> type = (Class<List<Long>>) (Class<?>) List.class;
+        return new DefaultRedisScript<>(script, type);
+    }
+
+    public RedisScripts(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 预加载脚本，失败时只记录日志，首次执行时会通过EVAL加载
+     */
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            stringRedisTemplate.execute((RedisCallback<Object>) connection -> {
+                for (RedisScript<?> script : Arrays.asList(TOKEN_BUCKET, SLIDING_WINDOW, UNLOCK, RENEW)) {
+                    load(connection, script);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("预加载lua脚本失败", e);
+        }
+    }
+
+    private void load(RedisConnection connection, RedisScript<?> script) {
+        String sha = connection.scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+        if (!script.getSha1().equals(sha)) {
+            log.warn("lua脚本sha1不一致，本地{}，redis{}", script.getSha1(), sha);
+        }
+    }
+}
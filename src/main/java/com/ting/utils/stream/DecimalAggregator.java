@@ -0,0 +1,258 @@
+package com.ting.utils.stream;
+
+import org.springframework.util.Assert;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * BigDecimal并行汇总，计算数量、和、最小值、最大值
+ * <p>
+ * 数据按下标切分后在fork-join中分段汇总，再按原顺序两两合并。BigDecimal的加法是精确的，
+ * 和的scale是所有数据scale的最大值，所以与分段方式无关，结果与顺序执行
+ * {@code reduce(BigDecimal.ZERO, BigDecimal::add)}完全相同；最小值、最大值按原顺序合并，相等时同样取最靠前的一个。
+ * <p>
+ * 同一段内scale都相同时，和使用未缩放的long累加，累加过程不创建BigDecimal，long溢出时转入BigInteger；
+ * 取未缩放的值时每条数据会创建一个scale为0的临时BigDecimal（不创建BigInteger）。出现不同scale后该段改为BigDecimal累加
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class DecimalAggregator {
+
+    /**
+     * 每段最少的数据量，小于该数量时不再切分
+     */
+    private static final int THRESHOLD = 8192;
+
+    private DecimalAggregator() {
+    }
+
+    /**
+     * 使用公共fork-join线程池汇总
+     *
+     * @param collection 数据
+     * @param function   转换为BigDecimal，不能返回null
+     * @param <T>        数据类型
+     * @return 汇总结果
+     */
+    public static <T> DecimalSummary summarize(Collection<T> collection, Function<T, BigDecimal> function) {
+        return summarize(collection, function, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 汇总
+     *
+     * @param collection 数据
+     * @param function   转换为BigDecimal，不能返回null
+     * @param pool       执行汇总的线程池
+     * @param <T>        数据类型
+     * @return 汇总结果
+     */
+    public static <T> DecimalSummary summarize(Collection<T> collection, Function<T, BigDecimal> function,
+                                               ForkJoinPool pool) {
+        Assert.notEmpty(collection, "数据不能为空");
+        List<T> list = collection instanceof List && collection instanceof RandomAccess
+                ? (List<T>) collection : new ArrayList<>(collection);
+        SummaryTask<T> task = new SummaryTask<>(list, function, 0, list.size());
+        Partial partial = list.size() <= THRESHOLD ? task.compute() : pool.invoke(task);
+        return partial.toSummary();
+    }
+
+    private static class SummaryTask<T> extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<T> list;
+
+        private final Function<T, BigDecimal> function;
+
+        private final int from;
+
+        private final int to;
+
+        private SummaryTask(List<T> list, Function<T, BigDecimal> function, int from, int to) {
+            this.list = list;
+            this.function = function;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= THRESHOLD) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) {
+                    BigDecimal value = function.apply(list.get(i));
+                    Assert.notNull(value, "数据中存在null");
+                    partial.add(value);
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            SummaryTask<T> right = new SummaryTask<>(list, function, middle, to);
+            right.fork();
+            Partial left = new SummaryTask<>(list, function, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    /**
+     * 一段数据的汇总
+     */
+    private static class Partial {
+
+        private long count;
+
+        private BigDecimal min;
+
+        private BigDecimal max;
+
+        /**
+         * 最小值、最大值是否可以用未缩放的long比较，以及对应的未缩放值
+         */
+        private boolean minCompact;
+
+        private boolean maxCompact;
+
+        private long minUnscaled;
+
+        private long maxUnscaled;
+
+        /**
+         * 是否还在使用未缩放的long累加
+         */
+        private boolean compact = true;
+
+        private int scale;
+
+        private long unscaled;
+
+        /**
+         * long溢出后累计的部分
+         */
+        private BigInteger overflow;
+
+        /**
+         * 出现不同scale后的和
+         */
+        private BigDecimal sum;
+
+        private void add(BigDecimal value) {
+            if (count++ == 0) {
+                scale = value.scale();
+                min = value;
+                max = value;
+            }
+            if (compact && value.scale() == scale) {
+                // 不超过18位的未缩放值一定在long范围内，更长的直接按BigInteger累加，不依赖异常判断溢出
+                if (value.precision() > 18) {
+                    overflow = overflow == null ? value.unscaledValue() : overflow.add(value.unscaledValue());
+                    trackBig(value);
+                    return;
+                }
+                // BigDecimal没有不分配对象获取未缩放long的方法，移动小数点得到的临时对象scale为0，不创建BigInteger
+                long unscaledValue = value.movePointRight(scale).longValueExact();
+                addUnscaled(unscaledValue);
+                track(value, unscaledValue);
+                return;
+            }
+            trackBig(value);
+            if (compact) {
+                sum = compactSum();
+                compact = false;
+            }
+            sum = sum.add(value);
+        }
+
+        /**
+         * scale相同时直接比较未缩放的值，严格小于（大于）时才替换，相等时保留前面的
+         */
+        private void track(BigDecimal value, long unscaledValue) {
+            if (count == 1) {
+                minUnscaled = unscaledValue;
+                maxUnscaled = unscaledValue;
+                minCompact = true;
+                maxCompact = true;
+                return;
+            }
+            if (minCompact ? unscaledValue < minUnscaled : value.compareTo(min) < 0) {
+                min = value;
+                minUnscaled = unscaledValue;
+                minCompact = true;
+            }
+            if (maxCompact ? unscaledValue > maxUnscaled : value.compareTo(max) > 0) {
+                max = value;
+                maxUnscaled = unscaledValue;
+                maxCompact = true;
+            }
+        }
+
+        private void trackBig(BigDecimal value) {
+            if (value.compareTo(min) < 0) {
+                min = value;
+                minCompact = false;
+            }
+            if (value.compareTo(max) > 0) {
+                max = value;
+                maxCompact = false;
+            }
+        }
+
+        private void addUnscaled(long value) {
+            long result = unscaled + value;
+            if (((unscaled ^ result) & (value ^ result)) < 0) {
+                overflow = overflow == null ? BigInteger.valueOf(unscaled) : overflow.add(BigInteger.valueOf(unscaled));
+                unscaled = value;
+            } else {
+                unscaled = result;
+            }
+        }
+
+        private BigDecimal compactSum() {
+            return overflow == null
+                    ? BigDecimal.valueOf(unscaled, scale)
+                    : new BigDecimal(overflow.add(BigInteger.valueOf(unscaled)), scale);
+        }
+
+        /**
+         * 合并后面一段的结果，相等时保留前面一段的最小值、最大值
+         */
+        private Partial merge(Partial right) {
+            if (right.count == 0) {
+                return this;
+            }
+            if (count == 0) {
+                return right;
+            }
+            count += right.count;
+            min = min.min(right.min);
+            max = max.max(right.max);
+            if (compact && right.compact && scale == right.scale) {
+                addUnscaled(right.unscaled);
+                if (right.overflow != null) {
+                    overflow = overflow == null ? right.overflow : overflow.add(right.overflow);
+                }
+                return this;
+            }
+            BigDecimal left = compact ? compactSum() : sum;
+            sum = left.add(right.compact ? right.compactSum() : right.sum);
+            compact = false;
+            return this;
+        }
+
+        private DecimalSummary toSummary() {
+            // 与从BigDecimal.ZERO开始累加一致，scale小于0时变为0
+            BigDecimal total = BigDecimal.ZERO.add(compact ? compactSum() : sum);
+            return new DecimalSummary(count, total, min, max);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ting.utils.stream;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.Assert;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * BigDecimal汇总结果
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ * @see DecimalAggregator
+ */
+@Getter
+@ToString
+public class DecimalSummary {
+
+    /**
+     * 数量
+     */
+    private final long count;
+
+    /**
+     * 和，与从BigDecimal.ZERO开始依次add的结果完全相同，包括scale
+     */
+    private final BigDecimal sum;
+
+    /**
+     * 最小值，相等时取最靠前的一个，与依次BigDecimal#min的结果相同
+     */
+    private final BigDecimal min;
+
+    /**
+     * 最大值，相等时取最靠前的一个，与依次BigDecimal#max的结果相同
+     */
+    private final BigDecimal max;
+
+    DecimalSummary(long count, BigDecimal sum, BigDecimal min, BigDecimal max) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * 平均值
+     *
+     * @param scale        小数位数
+     * @param roundingMode 舍入方式
+     * @return sum / count
+     */
+    public BigDecimal getAverage(int scale, RoundingMode roundingMode) {
+        Assert.isTrue(count > 0, "没有数据");
+        return sum.divide(BigDecimal.valueOf(count), scale, roundingMode);
+    }
+}
@@ -6,11 +6,8 @@ import com.ting.utils.dto.ParamDto;
 import org.springframework.util.Assert;
 
 import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.LocalDateTime;
+import java.time.Duration;
 import java.time.ZoneId;
-import java.time.temporal.ChronoUnit;
-import java.time.temporal.TemporalUnit;
 import java.util.*;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
@@ -45,6 +42,21 @@ public class StreamUtils {
                 .reduce(decimal, decimalFunction);
     }
 
+    /**
+     * 并行汇总集合数据中的某个数值数据，计算数量、和、最小值、最大值，平均值通过{@link DecimalSummary#getAverage}获取
+     * <p>
+     * 和与{@code calculationCollection(collection, function, BigDecimal.ZERO, BigDecimal::add)}的结果完全相同
+     *
+     * @param collection {@link Collection<T>}       需要汇总的集合
+     * @param function   {@link Function<T, BigDecimal>} 数据转换，不能返回null
+     * @param <T>        泛型
+     * @return {@link DecimalSummary} 汇总结果
+     * @see DecimalAggregator
+     */
+    public static <T> DecimalSummary summarizeCollection(Collection<T> collection, Function<T, BigDecimal> function) {
+        return DecimalAggregator.summarize(collection, function);
+    }
+
     /**
      * 嵌套list分组，根据list中的list中的某个属性进行分组
      * <p>
@@ -91,34 +103,26 @@ public class StreamUtils {
      *
      * @param list {@link List<Date>} 入参
      * @return {@link Map<String, List<Date>>} key:时间；value:分组的数据
-     * @see LocalDateTime#truncatedTo(TemporalUnit)  分隔方法
-     * @see DateUtils#DATE_FORMATTER_MINUTE 时间的序列化，即key存入的值
-     * @see Collectors#groupingBy(Function) 分组方法
+     * @see #handleDataByTime(List, Duration)
      */
     public static Map<String, List<Date>> handleDataByTime(List<Date> list) {
-        Assert.notEmpty(list, "数据不能为空");
-        return list.stream().collect(
-                Collectors.groupingBy(
-                        item -> {
-                            Instant instant = item.toInstant();
-
-                            LocalDateTime time = instant
-                                    .atZone(ZoneId.systemDefault())
-                                    .toLocalDateTime();
-                            // 存储分钟的小时字段
-                            int minutes = time.getMinute();
-                            // 确定我们是多少分钟高于最近的分钟间隔。
-                            int minutesOver = minutes % 5;
-                            // 将时间截断到分钟字段（将秒和纳秒归零），
-                            // 并强制将分钟数设置为 minutesOver 分钟间隔
-                            return time.truncatedTo(ChronoUnit.MINUTES)
-                                    .withMinute(minutes - minutesOver)
-                                    .format(DateUtils.DATE_FORMATTER_MINUTE);
-                        }
-
-                )
-        );
+        return handleDataByTime(list, Duration.ofMinutes(5));
+    }
 
+    /**
+     * 根据时间间隔分组，按系统时区的当地时间对齐
+     *
+     * @param list     {@link List<Date>} 入参
+     * @param interval {@link Duration} 时间间隔，如5分钟
+     * @return {@link Map<String, List<Date>>} key:时间；value:分组的数据（可以修改的ArrayList），按时间排序
+     * @see TimeBucketer 分组方法，需要排序后的桶或只需要数量时直接使用
+     * @see DateUtils#DATE_FORMATTER_MINUTE 时间的序列化，即key存入的值
+     */
+    public static Map<String, List<Date>> handleDataByTime(List<Date> list, Duration interval) {
+        Assert.notEmpty(list, "数据不能为空");
+        return TimeBucketer.of(interval, ZoneId.systemDefault())
+                .group(list, Date::getTime)
+                .toMap(DateUtils.DATE_FORMATTER_MINUTE);
     }
 
     public static void main(String[] args) {
@@ -132,6 +136,7 @@ public class StreamUtils {
         }};
         BigDecimal bigDecimal = calculationCollection(list, Function.identity(), BigDecimal.ZERO, BigDecimal::add);
         System.out.println("calculationCollection = " + bigDecimal);
+        System.out.println("summarizeCollection = " + summarizeCollection(list, Function.identity()));
 
         //数据转换
         List<BigDecimal> list1 = dataConversion2List(list, Function.identity());
@@ -0,0 +1,281 @@
+package com.ting.utils.stream;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 按固定时长把时间戳分组
+ * <p>
+ * 全部使用毫秒数计算：时间戳加上所在时区的偏移得到当地时间毫秒数，再减去对齐偏移后向下取整到宽度的倍数。
+ * 1900到2100年之间的时区偏移在创建时预先计算为变化时刻的数组，查找不创建对象，超出范围时使用{@link ZoneRules}。
+ * 分组使用long为key的开放寻址表，最后对桶排序并把数据按桶连续存放，不为每条数据创建key字符串或LocalDateTime。
+ * 实例不可变，可以在多个线程中共用
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ * @see TimeBuckets
+ */
+public class TimeBucketer {
+
+    private static final long TABLE_START = LocalDateTime.of(1900, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+
+    private static final long TABLE_END = LocalDateTime.of(2100, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC) * 1000;
+
+    private final long width;
+
+    private final long alignment;
+
+    private final ZoneRules rules;
+
+    /**
+     * 偏移变化的时刻，transitions[i]开始偏移为offsets[i + 1]，之前为offsets[0]
+     */
+    private final long[] transitions;
+
+    private final long[] offsets;
+
+    private TimeBucketer(long width, long alignment, ZoneId zone) {
+        this.width = width;
+        this.alignment = Math.floorMod(alignment, width);
+        this.rules = zone.getRules();
+        List<ZoneOffsetTransition> list = new ArrayList<>();
+        ZoneOffsetTransition transition = rules.nextTransition(Instant.ofEpochMilli(TABLE_START));
+        while (transition != null && transition.toEpochSecond() * 1000 < TABLE_END) {
+            list.add(transition);
+            transition = rules.nextTransition(transition.getInstant());
+        }
+        this.transitions = new long[list.size()];
+        this.offsets = new long[list.size() + 1];
+        offsets[0] = rules.getOffset(Instant.ofEpochMilli(TABLE_START)).getTotalSeconds() * 1000L;
+        for (int i = 0; i < list.size(); i++) {
+            transitions[i] = list.get(i).toEpochSecond() * 1000;
+            offsets[i + 1] = list.get(i).getOffsetAfter().getTotalSeconds() * 1000L;
+        }
+    }
+
+    /**
+     * @param width 桶的宽度，如5分钟
+     * @param zone  时区
+     * @return 按当地时间对齐到宽度整数倍的分组器，宽度能整除1天时桶从当地0点开始
+     */
+    public static TimeBucketer of(Duration width, ZoneId zone) {
+        return of(width, Duration.ZERO, zone);
+    }
+
+    /**
+     * @param width     桶的宽度
+     * @param alignment 对齐偏移，桶从当地时间1970-01-01 00:00加上该偏移再加上宽度的整数倍开始，
+     *                  如宽度7天、偏移4天时每周从周一开始
+     * @param zone      时区
+     * @return 分组器
+     */
+    public static TimeBucketer of(Duration width, Duration alignment, ZoneId zone) {
+        Assert.isTrue(width.toMillis() > 0, "宽度必须大于0毫秒");
+        return new TimeBucketer(width.toMillis(), alignment.toMillis(), zone);
+    }
+
+    /**
+     * @param epochMilli 时间戳
+     * @return 所在桶开始的当地时间毫秒数
+     */
+    public long bucket(long epochMilli) {
+        long local = epochMilli + offset(epochMilli);
+        return Math.floorDiv(local - alignment, width) * width + alignment;
+    }
+
+    /**
+     * @param epochMilli 时间戳
+     * @return 时区偏移毫秒数
+     */
+    public long offset(long epochMilli) {
+        if (transitions.length == 0 && rules.isFixedOffset()) {
+            return offsets[0];
+        }
+        if (epochMilli < TABLE_START || epochMilli >= TABLE_END) {
+            return rules.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds() * 1000L;
+        }
+        // 已经没有夏令时的时区，当前的数据都在最后一次变化之后
+        if (transitions.length > 0 && epochMilli >= transitions[transitions.length - 1]) {
+            return offsets[transitions.length];
+        }
+        // 第一个大于epochMilli的变化时刻之前的偏移
+        int low = 0;
+        int high = transitions.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (transitions[middle] <= epochMilli) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return offsets[low];
+    }
+
+    /**
+     * 分组并保留数据
+     *
+     * @param collection 数据
+     * @param time       获取时间戳
+     * @param <T>        数据类型
+     * @return 分组结果，桶中的数据保持原来的顺序
+     */
+    public <T> TimeBuckets<T> group(Collection<T> collection, ToLongFunction<T> time) {
+        Object[] source = collection.toArray();
+        int[] ids = new int[source.length];
+        BucketTable table = new BucketTable();
+        for (int i = 0; i < source.length; i++) {
+            @SuppressWarnings("unchecked")
+            T item = (T) source[i];
+            ids[i] = table.id(bucket(time.applyAsLong(item)));
+        }
+        int[] offsets = table.offsets();
+        int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+        Object[] items = new Object[source.length];
+        for (int i = 0; i < source.length; i++) {
+            items[positions[table.rank[ids[i]]]++] = source[i];
+        }
+        return new TimeBuckets<>(table.sortedKeys, offsets, items);
+    }
+
+    /**
+     * 只计数，不保存数据
+     *
+     * @param epochMillis 时间戳
+     * @return 分组结果，{@link TimeBuckets#getCount(int)}为每个桶的数量
+     */
+    public TimeBuckets<Void> count(long[] epochMillis) {
+        BucketTable table = new BucketTable();
+        for (long epochMilli : epochMillis) {
+            table.id(bucket(epochMilli));
+        }
+        return new TimeBuckets<>(table.sortedKeys(), table.offsets(), null);
+    }
+
+    /**
+     * long到连续编号的开放寻址表，同时记录每个编号的数量；相邻数据通常在同一个桶，先与上一个key比较
+     */
+    private static class BucketTable {
+
+        private long[] tableKeys = new long[64];
+
+        /**
+         * 编号加1，0表示空位
+         */
+        private int[] tableIds = new int[64];
+
+        private long[] keys = new long[32];
+
+        private int[] counts = new int[32];
+
+        private int size;
+
+        private long lastKey;
+
+        private int lastId = -1;
+
+        private long[] sortedKeys;
+
+        /**
+         * 编号按key排序后的位置
+         */
+        private int[] rank;
+
+        private int id(long key) {
+            if (lastId >= 0 && key == lastKey) {
+                counts[lastId]++;
+                return lastId;
+            }
+            int mask = tableKeys.length - 1;
+            int slot = mix(key) & mask;
+            while (tableIds[slot] != 0) {
+                if (tableKeys[slot] == key) {
+                    int id = tableIds[slot] - 1;
+                    counts[id]++;
+                    lastKey = key;
+                    lastId = id;
+                    return id;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            int id = size++;
+            keys[id] = key;
+            counts[id] = 1;
+            tableKeys[slot] = key;
+            tableIds[slot] = id + 1;
+            if (size * 2 > tableKeys.length) {
+                resize();
+            }
+            lastKey = key;
+            lastId = id;
+            return id;
+        }
+
+        private void resize() {
+            long[] oldKeys = tableKeys;
+            int[] oldIds = tableIds;
+            tableKeys = new long[oldKeys.length * 2];
+            tableIds = new int[oldIds.length * 2];
+            int mask = tableKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldIds[i] != 0) {
+                    int slot = mix(oldKeys[i]) & mask;
+                    while (tableIds[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    tableKeys[slot] = oldKeys[i];
+                    tableIds[slot] = oldIds[i];
+                }
+            }
+        }
+
+        private long[] sortedKeys() {
+            if (sortedKeys == null) {
+                sortedKeys = Arrays.copyOf(keys, size);
+                Arrays.sort(sortedKeys);
+                rank = new int[size];
+                for (int id = 0; id < size; id++) {
+                    rank[id] = Arrays.binarySearch(sortedKeys, keys[id]);
+                }
+            }
+            return sortedKeys;
+        }
+
+        /**
+         * @return 按key排序后每个桶在数据数组中的开始位置，最后一个元素是总数
+         */
+        private int[] offsets() {
+            sortedKeys();
+            int[] offsets = new int[size + 1];
+            for (int id = 0; id < size; id++) {
+                offsets[rank[id] + 1] = counts[id];
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            return offsets;
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
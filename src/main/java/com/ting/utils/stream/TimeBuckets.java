@@ -0,0 +1,136 @@
+package com.ting.utils.stream;
+
+import org.springframework.util.Assert;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按时间分组的结果，桶按开始时间从小到大排列
+ * <p>
+ * 桶的key是当地时间的毫秒数，即把当地的年月日时分秒当作UTC换算出的毫秒数，夏令时切换时同一个当地时间的数据会落在同一个桶中。
+ * 所有数据放在一个数组中，每个桶是其中连续的一段，{@link #getItems(int)}返回视图，key的格式化只在调用时进行
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ * @see TimeBucketer
+ */
+public class TimeBuckets<T> {
+
+    private final long[] keys;
+
+    /**
+     * 第i个桶的数据在items中的范围是[offsets[i], offsets[i + 1])
+     */
+    private final int[] offsets;
+
+    /**
+     * 只计数时为null
+     */
+    private final Object[] items;
+
+    TimeBuckets(long[] keys, int[] offsets, Object[] items) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.items = items;
+    }
+
+    /**
+     * @return 桶的数量
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @param index 桶的下标
+     * @return 桶开始的当地时间毫秒数
+     */
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index 桶的下标
+     * @return 桶开始的当地时间
+     */
+    public LocalDateTime getLocalDateTime(int index) {
+        long key = keys[index];
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1000), (int) Math.floorMod(key, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    /**
+     * @param index     桶的下标
+     * @param formatter 格式
+     * @return 格式化后的桶开始时间
+     */
+    public String format(int index, DateTimeFormatter formatter) {
+        return getLocalDateTime(index).format(formatter);
+    }
+
+    /**
+     * @param index 桶的下标
+     * @return 桶中的数据量
+     */
+    public int getCount(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * @param index 桶的下标
+     * @return 桶中的数据，保持原来的顺序，只读视图
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getItems(int index) {
+        Assert.notNull(items, "只计数时没有保存数据");
+        return Collections.unmodifiableList((List<T>) Arrays.asList(items).subList(offsets[index], offsets[index + 1]));
+    }
+
+    /**
+     * 按桶开始时间查找
+     *
+     * @param key 桶开始的当地时间毫秒数
+     * @return 桶的下标，不存在时为负数
+     */
+    public int indexOf(long key) {
+        return Arrays.binarySearch(keys, key);
+    }
+
+    /**
+     * 转换为以格式化时间为key的map，同一格式下的多个桶会合并
+     *
+     * @param formatter 格式
+     * @return 按时间排序的map，每组都是新的ArrayList，可以修改
+     */
+    public Map<String, List<T>> toMap(DateTimeFormatter formatter) {
+        Map<String, List<T>> map = new LinkedHashMap<>(keys.length * 4 / 3 + 1);
+        for (int i = 0; i < keys.length; i++) {
+            int count = getCount(i);
+            map.computeIfAbsent(format(i, formatter), key -> new ArrayList<>(count)).addAll(getItems(i));
+        }
+        return map;
+    }
+
+    /**
+     * 转换为以格式化时间为key的数量map
+     *
+     * @param formatter 格式
+     * @return 按时间排序的map
+     */
+    public Map<String, Long> toCountMap(DateTimeFormatter formatter) {
+        Map<String, Long> map = new LinkedHashMap<>(keys.length * 4 / 3 + 1);
+        for (int i = 0; i < keys.length; i++) {
+            map.merge(format(i, formatter), (long) getCount(i), Long::sum);
+        }
+        return map;
+    }
+}
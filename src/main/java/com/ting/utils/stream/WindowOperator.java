@@ -0,0 +1,294 @@
+package com.ting.utils.stream;
+
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+
+/**
+ * 按事件时间增量计算的滚动窗口和滑动窗口
+ * <p>
+ * 每个事件到达时直接累加到所属窗口的{@link Collector}容器中，不保存事件本身。
+ * 水位线为已见到的最大事件时间减去允许乱序的时长，水位线达到窗口结束时间时窗口关闭并立即输出结果；
+ * 关闭后的窗口再保留允许延迟的时长，期间到达的事件会更新窗口并再次输出（{@link WindowResult#isUpdate()}为true），
+ * 之后到达的事件丢弃并计数。内存只与未清理的窗口数量有关，与输入总量无关。
+ * <p>
+ * 需要按key分别统计时使用{@link Collectors#groupingBy}作为聚合。
+ * 允许延迟大于0时，{@link Collector.Characteristics#IDENTITY_FINISH}的聚合输出的是仍会被更新的容器本身。
+ * 方法都是同步的，可以从多个线程写入，结果在写入线程中输出
+ *
+ * @param <T> 事件类型
+ * @param <A> 聚合的中间容器
+ * @param <R> 聚合结果
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ */
+public class WindowOperator<T, A, R> {
+
+    private final long size;
+
+    private final long slide;
+
+    private final long offset;
+
+    private final long maxOutOfOrderness;
+
+    private final long allowedLateness;
+
+    private final ToLongFunction<T> timestamp;
+
+    private final Collector<T, A, R> collector;
+
+    private final Consumer<WindowResult<R>> sink;
+
+    /**
+     * 未清理的窗口，key为开始时间；窗口长度相同，所以按开始时间排序也就是按结束时间排序
+     */
+    private final TreeMap<Long, Window<A>> windows = new TreeMap<>();
+
+    private long watermark = Long.MIN_VALUE;
+
+    private long dropped;
+
+    private WindowOperator(Builder<T> builder, Collector<T, A, R> collector, Consumer<WindowResult<R>> sink) {
+        this.size = builder.size;
+        this.slide = builder.slide;
+        this.offset = Math.floorMod(builder.offset, builder.slide);
+        this.maxOutOfOrderness = builder.maxOutOfOrderness;
+        this.allowedLateness = builder.allowedLateness;
+        this.timestamp = builder.timestamp;
+        this.collector = collector;
+        this.sink = sink;
+    }
+
+    /**
+     * @param timestamp 获取事件时间戳
+     * @param <T>       事件类型
+     * @return 构建器
+     */
+    public static <T> Builder<T> builder(ToLongFunction<T> timestamp) {
+        return new Builder<>(timestamp);
+    }
+
+    /**
+     * 写入一个事件，可能触发窗口输出
+     *
+     * @param event 事件
+     * @return 事件超过允许延迟被丢弃时返回false
+     */
+    public synchronized boolean accept(T event) {
+        long time = timestamp.applyAsLong(event);
+        boolean accepted = false;
+        // 最后一个包含该事件的窗口开始时间，依次向前
+        long start = Math.floorDiv(time - offset, slide) * slide + offset;
+        for (; start > time - size; start -= slide) {
+            long end = start + size;
+            if (watermark != Long.MIN_VALUE && end + allowedLateness <= watermark) {
+                break;
+            }
+            Window<A> window = windows.get(start);
+            if (window == null) {
+                window = new Window<>(collector.supplier().get());
+                windows.put(start, window);
+            }
+            collector.accumulator().accept(window.container, event);
+            window.count++;
+            accepted = true;
+            if (window.fired) {
+                // 已关闭的窗口在允许延迟内收到事件，输出更新后的结果
+                emit(start, window, true);
+            } else if (end <= watermark) {
+                // 水位线已经越过、之前没有事件的窗口，第一次输出
+                window.fired = true;
+                emit(start, window, false);
+            }
+        }
+        if (!accepted) {
+            dropped++;
+        }
+        if (time != Long.MIN_VALUE && time - maxOutOfOrderness > watermark) {
+            advance(time - maxOutOfOrderness);
+        }
+        return accepted;
+    }
+
+    /**
+     * 推进水位线，没有新事件时由定时任务按处理时间调用，使空闲时已到期的窗口也能输出
+     *
+     * @param watermark 水位线，小于当前水位线时忽略
+     */
+    public synchronized void advanceWatermark(long watermark) {
+        if (watermark > this.watermark) {
+            advance(watermark);
+        }
+    }
+
+    /**
+     * 输出所有未关闭的窗口并清空，用于停止时
+     */
+    public synchronized void flush() {
+        windows.forEach((start, window) -> {
+            if (!window.fired) {
+                emit(start, window, false);
+            }
+        });
+        windows.clear();
+    }
+
+    /**
+     * @return 当前水位线，还没有事件时为Long.MIN_VALUE
+     */
+    public synchronized long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return 未清理的窗口数量
+     */
+    public synchronized int getOpenWindows() {
+        return windows.size();
+    }
+
+    /**
+     * @return 超过允许延迟被丢弃的事件数量
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    private void advance(long watermark) {
+        this.watermark = watermark;
+        Iterator<Map.Entry<Long, Window<A>>> iterator = windows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Window<A>> entry = iterator.next();
+            long end = entry.getKey() + size;
+            if (end > watermark) {
+                break;
+            }
+            Window<A> window = entry.getValue();
+            if (!window.fired) {
+                window.fired = true;
+                emit(entry.getKey(), window, false);
+            }
+            if (end + allowedLateness <= watermark) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void emit(long start, Window<A> window, boolean update) {
+        sink.accept(new WindowResult<>(start, start + size, window.count,
+                collector.finisher().apply(window.container), update));
+    }
+
+    public static void main(String[] args) {
+        // 10秒的滚动窗口，允许乱序2秒、延迟5秒，统计每个窗口的事件数量
+        WindowOperator<Long, ?, Long> operator = WindowOperator.<Long>builder(time -> time)
+                .tumbling(Duration.ofSeconds(10))
+                .maxOutOfOrderness(Duration.ofSeconds(2))
+                .allowedLateness(Duration.ofSeconds(5))
+                .build(Collectors.counting(), System.out::println);
+        for (long time : new long[]{1_000, 4_000, 11_000, 9_000, 13_000, 8_000, 17_500, 2_000, 23_000}) {
+            System.out.println("accept(" + time + ") = " + operator.accept(time) + ", watermark = " + operator.getWatermark());
+        }
+        operator.flush();
+        System.out.println("dropped = " + operator.getDropped());
+    }
+
+    private static class Window<A> {
+
+        private final A container;
+
+        private long count;
+
+        private boolean fired;
+
+        private Window(A container) {
+            this.container = container;
+        }
+    }
+
+    public static class Builder<T> {
+
+        private final ToLongFunction<T> timestamp;
+
+        private long size;
+
+        private long slide;
+
+        private long offset;
+
+        private long maxOutOfOrderness;
+
+        private long allowedLateness;
+
+        private Builder(ToLongFunction<T> timestamp) {
+            Assert.notNull(timestamp, "时间戳不能为空");
+            this.timestamp = timestamp;
+        }
+
+        /**
+         * 滚动窗口，窗口之间不重叠
+         */
+        public Builder<T> tumbling(Duration size) {
+            return sliding(size, size);
+        }
+
+        /**
+         * 滑动窗口，每个事件属于size/slide个窗口
+         */
+        public Builder<T> sliding(Duration size, Duration slide) {
+            Assert.isTrue(slide.toMillis() > 0 && size.toMillis() >= slide.toMillis(), "窗口长度必须不小于滑动步长且步长大于0");
+            this.size = size.toMillis();
+            this.slide = slide.toMillis();
+            return this;
+        }
+
+        /**
+         * 窗口开始时间相对1970-01-01 00:00 UTC的偏移，如东八区按天统计时为-8小时
+         */
+        public Builder<T> offset(Duration offset) {
+            this.offset = offset.toMillis();
+            return this;
+        }
+
+        /**
+         * 允许乱序的时长，水位线落后最大事件时间该时长
+         */
+        public Builder<T> maxOutOfOrderness(Duration maxOutOfOrderness) {
+            Assert.isTrue(!maxOutOfOrderness.isNegative(), "乱序时长不能小于0");
+            this.maxOutOfOrderness = maxOutOfOrderness.toMillis();
+            return this;
+        }
+
+        /**
+         * 窗口关闭后继续接收延迟事件的时长
+         */
+        public Builder<T> allowedLateness(Duration allowedLateness) {
+            Assert.isTrue(!allowedLateness.isNegative(), "允许延迟不能小于0");
+            this.allowedLateness = allowedLateness.toMillis();
+            return this;
+        }
+
+        /**
+         * @param collector 窗口的聚合
+         * @param sink      接收窗口结果
+         * @param <A>       聚合的中间容器
+         * @param <R>       聚合结果
+         * @return 窗口算子
+         */
+        public <A, R> WindowOperator<T, A, R> build(Collector<T, A, R> collector, Consumer<WindowResult<R>> sink) {
+            Assert.isTrue(size > 0, "需要先设置滚动窗口或滑动窗口");
+            Assert.notNull(collector, "聚合不能为空");
+            Assert.notNull(sink, "结果接收不能为空");
+            return new WindowOperator<>(this, collector, sink);
+        }
+    }
+}
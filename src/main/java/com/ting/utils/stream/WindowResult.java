@@ -0,0 +1,40 @@
+package com.ting.utils.stream;
+
+import lombok.Value;
+
+/**
+ * 窗口的聚合结果
+ *
+ * @author lishuang
+ * @version 1.0
+ * @date 2026/10/18
+ * @see WindowOperator
+ */
+@Value
+public class WindowResult<R> {
+
+    /**
+     * 窗口开始时间戳（包含）
+     */
+    long start;
+
+    /**
+     * 窗口结束时间戳（不包含）
+     */
+    long end;
+
+    /**
+     * 窗口中的事件数量
+     */
+    long count;
+
+    /**
+     * 聚合结果
+     */
+    R result;
+
+    /**
+     * 窗口关闭后又收到允许延迟范围内的事件，再次输出的更新结果时为true
+     */
+    boolean update;
+}
@@ -0,0 +1,156 @@
+package com.ting.utils.redis;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 分片路由、多key拆分和结果汇总，使用本机启动的多个redis-server进程
+ * <p>
+ * 通过-Dredis.server指定redis-server的路径，默认从PATH中查找；找不到时跳过
+ */
+class ShardedRedisUtilsIntegrationTest {
+
+    private static final int SHARDS = 3;
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private static final List<Process> PROCESSES = new ArrayList<>();
+
+    private static final Map<String, LettuceConnectionFactory> FACTORIES = new LinkedHashMap<>();
+
+    /**
+     * 直连每个节点，用来检查key实际落在哪个节点上
+     */
+    private static final Map<String, StringRedisTemplate> DIRECT = new LinkedHashMap<>();
+
+    private static ShardedRedisUtils shardedRedisUtils;
+
+    @BeforeAll
+    static void startServers() throws Exception {
+        String server = redisServer();
+        assumeTrue(server != null, "没有找到redis-server，跳过");
+        for (int i = 0; i < SHARDS; i++) {
+            int port = freePort();
+            PROCESSES.add(new ProcessBuilder(server, "--port", String.valueOf(port), "--save", "", "--appendonly", "no")
+                    .redirectErrorStream(true)
+                    .redirectOutput(File.createTempFile("redis-" + port, ".log"))
+                    .start());
+            awaitPort(port);
+            LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+            factory.afterPropertiesSet();
+            String node = "127.0.0.1:" + port;
+            FACTORIES.put(node, factory);
+            DIRECT.put(node, new StringRedisTemplate(factory));
+        }
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(FACTORIES.values().iterator().next());
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(StringRedisSerializer.UTF_8);
+        template.afterPropertiesSet();
+        shardedRedisUtils = new ShardedRedisUtils(new LinkedHashMap<>(FACTORIES), new RedisUtils(template), VIRTUAL_NODES);
+    }
+
+    @AfterAll
+    static void stopServers() {
+        if (shardedRedisUtils != null) {
+            shardedRedisUtils.destroy();
+        }
+        PROCESSES.forEach(Process::destroy);
+    }
+
+    @Test
+    void keysLandOnTheOwningNode() {
+        for (int i = 0; i < 200; i++) {
+            String key = "route:" + i;
+            assertTrue(shardedRedisUtils.setValue(key, "v" + i));
+            String owner = shardedRedisUtils.shardName(key);
+            DIRECT.forEach((node, direct) -> assertEquals(node.equals(owner), Boolean.TRUE.equals(direct.hasKey(key)), key));
+            // 沿用原型的序列化，值按UTF-8写入而不是JDK序列化
+            assertEquals("v" + i, DIRECT.get(owner).opsForValue().get(key));
+        }
+        Set<String> used = IntStream.range(0, 200).mapToObj(i -> shardedRedisUtils.shardName("route:" + i))
+                .collect(Collectors.toSet());
+        assertEquals(SHARDS, used.size());
+    }
+
+    @Test
+    void deleteRemovesKeysFromEveryShard() {
+        String[] keys = IntStream.range(0, 300).mapToObj(i -> "delete:" + i).toArray(String[]::new);
+        Arrays.stream(keys).forEach(key -> shardedRedisUtils.setValue(key, "value"));
+
+        assertTrue(shardedRedisUtils.delete(keys));
+
+        DIRECT.values().forEach(direct -> assertTrue(direct.keys("delete:*").isEmpty()));
+    }
+
+    @Test
+    void scanCollectsKeysFromEveryShard() {
+        Set<String> expected = IntStream.range(0, 300).mapToObj(i -> "scan:" + i).collect(Collectors.toCollection(TreeSet::new));
+        expected.forEach(key -> shardedRedisUtils.setValue(key, "value"));
+
+        Set<String> scanned = ConcurrentHashMap.newKeySet();
+        shardedRedisUtils.scan("scan:*", 50, 20, scanned::addAll);
+
+        assertEquals(expected, new TreeSet<>(scanned));
+        DIRECT.values().forEach(direct -> assertFalse(direct.keys("scan:*").isEmpty()));
+    }
+
+    private static String redisServer() {
+        String configured = System.getProperty("redis.server");
+        if (configured != null) {
+            return new File(configured).canExecute() ? configured : null;
+        }
+        String path = System.getenv("PATH");
+        for (String dir : path == null ? Collections.<String>emptyList() : Arrays.asList(path.split(File.pathSeparator))) {
+            File file = new File(dir, "redis-server");
+            if (file.canExecute()) {
+                return file.getAbsolutePath();
+            }
+        }
+        return null;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void awaitPort(int port) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            try (Socket ignored = new Socket("127.0.0.1", port)) {
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("redis-server没有在端口" + port + "上启动");
+    }
+}
@@ -0,0 +1,189 @@
+package com.ting.utils.redis;
+
+import com.ting.utils.hash.ConformityHash;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分片路由、多key拆分和结果汇总，使用mock的RedisTemplate，不需要redis
+ */
+class ShardedRedisUtilsTest {
+
+    private static final List<String> NODES = Arrays.asList("127.0.0.1:6379", "127.0.0.1:6380", "127.0.0.1:6381");
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private final Map<String, RedisTemplate<String, Object>> templates = new LinkedHashMap<>();
+
+    private final Map<String, ValueOperations<String, Object>> valueOperations = new LinkedHashMap<>();
+
+    /**
+     * 每个分片收到的UNLINK的key
+     */
+    private final Map<String, Set<String>> unlinked = new ConcurrentHashMap<>();
+
+    private ShardedRedisUtils shardedRedisUtils;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        for (String node : NODES) {
+            RedisTemplate<String, Object> template = mock(RedisTemplate.class);
+            ValueOperations<String, Object> operations = mock(ValueOperations.class);
+            when(template.opsForValue()).thenReturn(operations);
+            doReturn(StringRedisSerializer.UTF_8).when(template).getKeySerializer();
+            when(template.unlink(anyCollection())).thenAnswer(invocation -> {
+                Collection<String> keys = invocation.getArgument(0);
+                unlinked.computeIfAbsent(node, key -> ConcurrentHashMap.newKeySet()).addAll(keys);
+                return (long) keys.size();
+            });
+            templates.put(node, template);
+            valueOperations.put(node, operations);
+        }
+        Map<String, StringRedisTemplate> stringTemplates = new LinkedHashMap<>();
+        NODES.forEach(node -> stringTemplates.put(node, mock(StringRedisTemplate.class)));
+        Map<String, RedisUtils> shards = new LinkedHashMap<>();
+        templates.forEach((node, template) -> shards.put(node, new RedisUtils(template)));
+        shardedRedisUtils = new ShardedRedisUtils(Collections.<String, RedisConnectionFactory>emptyMap(), shards,
+                stringTemplates, VIRTUAL_NODES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardedRedisUtils.destroy();
+    }
+
+    @Test
+    void routesKeysLikeTheHashRing() {
+        ConformityHash ring = new ConformityHash(NODES, VIRTUAL_NODES);
+        for (int i = 0; i < 1000; i++) {
+            String key = "user:" + i;
+            assertEquals(ring.getAddr(key), shardedRedisUtils.shardName(key));
+        }
+    }
+
+    @Test
+    void singleKeyOperationGoesToOwningShardOnly() {
+        String key = "order:42";
+        String owner = shardedRedisUtils.shardName(key);
+
+        assertTrue(shardedRedisUtils.setValue(key, "value"));
+
+        valueOperations.forEach((node, operations) -> {
+            if (node.equals(owner)) {
+                verify(operations).set(key, "value");
+            } else {
+                verify(operations, never()).set(any(), any());
+            }
+        });
+    }
+
+    @Test
+    void deleteSplitsKeysByShardAndUsesUnlink() {
+        String[] keys = IntStream.range(0, 300).mapToObj(i -> "session:" + i).toArray(String[]::new);
+
+        assertTrue(shardedRedisUtils.delete(keys));
+
+        Map<String, Set<String>> expected = Arrays.stream(keys)
+                .collect(Collectors.groupingBy(shardedRedisUtils::shardName, Collectors.toSet()));
+        assertEquals(expected, unlinked);
+        templates.values().forEach(template -> verify(template, never()).delete(anyCollection()));
+    }
+
+    @Test
+    void deleteReportsMissingKeys() {
+        String[] keys = IntStream.range(0, 50).mapToObj(i -> "session:" + i).toArray(String[]::new);
+        RedisTemplate<String, Object> template = templates.get(shardedRedisUtils.shardName(keys[0]));
+        when(template.unlink(anyCollection())).thenAnswer(invocation -> (long) invocation.<Collection<?>>getArgument(0).size() - 1);
+
+        assertFalse(shardedRedisUtils.delete(keys));
+    }
+
+    @Test
+    void scanAggregatesAllShards() {
+        Map<String, List<String>> keysByShard = givenKeysOnEveryShard(25);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        long total = shardedRedisUtils.scan("*", 10, 7, seen::addAll);
+
+        Set<String> expected = keysByShard.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+        assertEquals(expected.size(), total);
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void scanConsumerCanDeleteWithoutDeadlock() {
+        Map<String, List<String>> keysByShard = givenKeysOnEveryShard(40);
+
+        long total = assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                shardedRedisUtils.scan("*", 10, 5, batch -> shardedRedisUtils.delete(batch.toArray(new String[0]))));
+
+        assertEquals(120, total);
+        Set<String> expected = new TreeSet<>();
+        keysByShard.values().forEach(expected::addAll);
+        assertEquals(expected, unlinked.values().stream().flatMap(Set::stream).collect(Collectors.toCollection(TreeSet::new)));
+    }
+
+    /**
+     * 每个分片的SCAN返回count个属于该分片的key
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, List<String>> givenKeysOnEveryShard(int count) {
+        Map<String, List<String>> keysByShard = new LinkedHashMap<>();
+        NODES.forEach(node -> keysByShard.put(node, new ArrayList<>()));
+        for (int i = 0; keysByShard.values().stream().anyMatch(keys -> keys.size() < count); i++) {
+            String key = "scan:" + i;
+            List<String> keys = keysByShard.get(shardedRedisUtils.shardName(key));
+            if (keys.size() < count) {
+                keys.add(key);
+            }
+        }
+        keysByShard.forEach((node, keys) -> when(templates.get(node).executeWithStickyConnection(any()))
+                .thenAnswer(invocation -> cursor(keys)));
+        return keysByShard;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cursor<byte[]> cursor(List<String> keys) {
+        Iterator<String> iterator = keys.iterator();
+        Cursor<byte[]> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next().getBytes(StandardCharsets.UTF_8));
+        return cursor;
+    }
+}